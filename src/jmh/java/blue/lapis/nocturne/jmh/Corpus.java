@@ -0,0 +1,139 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.jmh;
+
+import static blue.lapis.nocturne.processor.index.model.IndexedClass.INDEXED_CLASSES;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.processor.index.model.IndexedClass;
+import blue.lapis.nocturne.processor.index.model.IndexedMethod;
+import blue.lapis.nocturne.util.MemberType;
+import blue.lapis.nocturne.util.helper.StringHelper;
+
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark state holding a corpus of real class files, along with strings
+ * derived from them.
+ *
+ * <p>By default, the corpus is the Guava JAR Nocturne is built against. Any
+ * other JAR may be used by passing {@code -p corpus=/path/to/file.jar} to
+ * JMH.</p>
+ */
+@State(Scope.Benchmark)
+public class Corpus {
+
+    @Param("")
+    public String corpus;
+
+    private ClassSet classSet;
+
+    JarClassEntry[] entries;
+    byte[][] classBytes;
+    String[] methodDescriptors;
+    String[] processedNames;
+
+    private int classCursor;
+    private int descriptorCursor;
+    private int nameCursor;
+
+    @Setup(Level.Trial)
+    public void load() throws IOException, URISyntaxException {
+        new Main(true);
+        File jar = corpus.isEmpty()
+                ? new File(ImmutableList.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                : new File(corpus);
+        classSet = JarLoader.loadJar(jar);
+        if (classSet == null) {
+            throw new IllegalStateException("Corpus " + jar + " contains no classes");
+        }
+
+        entries = classSet.getClasses().toArray(new JarClassEntry[0]);
+        classBytes = new byte[entries.length][];
+        for (int i = 0; i < entries.length; i++) {
+            classBytes[i] = entries[i].getContent(); // inflate once up front
+            entries[i] = new JarClassEntry(entries[i].getName(), classBytes[i]);
+        }
+
+        // index again so the constant pools stay available to the transformer
+        for (JarClassEntry entry : entries) {
+            entry.index();
+        }
+
+        List<String> descriptors = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (IndexedClass clazz : INDEXED_CLASSES.values()) {
+            names.add(StringHelper.getProcessedName(clazz.getName(), null, MemberType.CLASS));
+            for (IndexedMethod.Signature sig : clazz.getMethods().keySet()) {
+                String desc = sig.getDescriptor().toString();
+                descriptors.add(desc);
+                names.add(StringHelper.getProcessedName(clazz.getName() + '/' + sig.getName(), desc,
+                        MemberType.METHOD));
+            }
+        }
+        methodDescriptors = descriptors.toArray(new String[descriptors.size()]);
+        processedNames = names.toArray(new String[names.size()]);
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        classSet.close();
+    }
+
+    int nextClass() {
+        int index = classCursor;
+        classCursor = index + 1 == entries.length ? 0 : index + 1;
+        return index;
+    }
+
+    String nextMethodDescriptor() {
+        String desc = methodDescriptors[descriptorCursor];
+        descriptorCursor = descriptorCursor + 1 == methodDescriptors.length ? 0 : descriptorCursor + 1;
+        return desc;
+    }
+
+    String nextProcessedName() {
+        String name = processedNames[nameCursor];
+        nameCursor = nameCursor + 1 == processedNames.length ? 0 : nameCursor + 1;
+        return name;
+    }
+
+}
@@ -60,6 +60,11 @@ import java.util.logging.Logger;
 public class Main extends Application {
 
     public final boolean testingEnv;
+    /**
+     * Whether Nocturne is running without a GUI, e.g. in batch mode or under
+     * test.
+     */
+    public final boolean headless;
 
     private static Main instance;
 
@@ -102,13 +107,18 @@ public class Main extends Application {
         launch(args);
     }
 
-    public Main(boolean testingEnv) {
+    public Main(boolean testingEnv, boolean headless) {
         super();
         instance = this;
+        this.testingEnv = testingEnv;
+        this.headless = testingEnv || headless;
         if (!testingEnv) {
             initialize();
         }
-        this.testingEnv = testingEnv;
+    }
+
+    public Main(boolean testingEnv) {
+        this(testingEnv, testingEnv);
     }
 
     public Main() {
@@ -253,12 +263,20 @@ public class Main extends Application {
     }
 
     public static void setLoadedJar(ClassSet classSet) {
+        ClassSet previous = getInstance().loadedJar;
+        if (previous != null && previous != classSet) {
+            try {
+                previous.close();
+            } catch (IOException ex) {
+                getLogger().warning("Failed to release previously loaded JAR " + previous.getName());
+            }
+        }
         getInstance().loadedJar = classSet;
         updateTitle();
     }
 
     public static void updateTitle() {
-        if (getInstance().testingEnv) {
+        if (getInstance().headless) {
             return;
         }
 
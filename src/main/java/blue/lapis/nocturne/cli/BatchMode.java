@@ -0,0 +1,232 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.cli;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.io.JarExporter;
+import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.jar.io.SourceExporter;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.mapping.io.reader.MappingReaderType;
+import blue.lapis.nocturne.mapping.io.writer.MappingWriterType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+
+/**
+ * Headless entry point which loads JARs, applies mappings to them and writes
+ * the results, without initializing JavaFX.
+ */
+public final class BatchMode {
+
+    /**
+     * The placeholder in output paths which is replaced by the name of the
+     * JAR being processed, without its extension.
+     */
+    public static final String NAME_PLACEHOLDER = "{name}";
+
+    private static final String USAGE = "Usage: " + BatchMode.class.getName() + " --jar <file> [--jar <file>...]"
+            + " [--mappings <file>...] [--write-mappings <file>] [--export-sources <dir|file.zip>]"
+            + " [--export-jar <file>]\n"
+            + "Output paths may contain " + NAME_PLACEHOLDER + ", which is replaced by the name of each JAR.";
+
+    private static final int EXIT_FAILURE = 1;
+    private static final int EXIT_USAGE = 2;
+
+    private final List<File> jars = new ArrayList<>();
+    private final List<File> mappings = new ArrayList<>();
+    private String mappingsOutput;
+    private String sourcesOutput;
+    private String jarOutput;
+    private boolean help;
+
+    private BatchMode() {
+    }
+
+    /**
+     * Runs batch mode with the given arguments and exits.
+     *
+     * <p>This class must be used as the main class directly, rather than
+     * through {@link Main}, as the Java launcher starts the JavaFX toolkit
+     * for any main class extending
+     * {@link javafx.application.Application}.</p>
+     *
+     * @param args The command-line arguments
+     */
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Runs batch mode with the given arguments.
+     *
+     * @param args The command-line arguments
+     * @return The exit status of the run
+     */
+    public static int run(String... args) {
+        BatchMode batch = new BatchMode();
+        Optional<String> error = batch.parse(args);
+        if (error.isPresent()) {
+            System.err.println(error.get());
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+        if (batch.help) {
+            System.out.println(USAGE);
+            return 0;
+        }
+
+        new Main(false, true);
+        int failures = 0;
+        for (File jar : batch.jars) {
+            try {
+                if (!batch.process(jar)) {
+                    failures++;
+                }
+            } catch (IOException | RuntimeException ex) {
+                Main.getLogger().log(Level.SEVERE, "Failed to process " + jar, ex);
+                failures++;
+            }
+        }
+        return failures == 0 ? 0 : EXIT_FAILURE;
+    }
+
+    private Optional<String> parse(String... args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--help")) {
+                help = true;
+                return Optional.empty();
+            }
+            if (i + 1 == args.length) {
+                return Optional.of("Missing value for argument " + arg);
+            }
+            String value = args[++i];
+            switch (arg) {
+                case "--jar":
+                    jars.add(new File(value));
+                    break;
+                case "--mappings":
+                    if (!MappingReaderType.fromFileName(value).isPresent()) {
+                        return Optional.of("Unrecognized mapping format: " + value);
+                    }
+                    mappings.add(new File(value));
+                    break;
+                case "--write-mappings":
+                    mappingsOutput = value;
+                    break;
+                case "--export-sources":
+                    sourcesOutput = value;
+                    break;
+                case "--export-jar":
+                    jarOutput = value;
+                    break;
+                default:
+                    return Optional.of("Unrecognized argument " + arg);
+            }
+        }
+        if (jars.isEmpty()) {
+            return Optional.of("No JAR specified");
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Loads the given JAR, applies all mappings to it and writes the
+     * requested outputs.
+     *
+     * @param jarFile The JAR to process
+     * @return Whether the JAR was processed successfully
+     * @throws IOException If an exception occurs while reading or writing
+     */
+    private boolean process(File jarFile) throws IOException {
+        Main.getLogger().info("Processing " + jarFile);
+        ClassSet classSet = JarLoader.loadJar(jarFile);
+        if (classSet == null) {
+            return false;
+        }
+
+        // mappings for classes absent from the JAR are discarded while reading, so they're re-read for each JAR
+        Main.getMappingContext().clear();
+        for (File mappingFile : mappings) {
+            MappingReaderType type = MappingReaderType.fromFileName(mappingFile.getName()).get();
+            Main.getMappingContext().assimilate(type.read(mappingFile.toPath()));
+        }
+
+        String jarName = jarFile.getName();
+        if (jarName.endsWith(".jar")) {
+            jarName = jarName.substring(0, jarName.length() - ".jar".length());
+        }
+
+        if (mappingsOutput != null) {
+            Path output = resolveOutput(mappingsOutput, jarName);
+            MappingWriterType type = MappingWriterType.fromFileName(output.toString()).orElse(MappingWriterType.SRG);
+            type.write(Main.getMappingContext(), output);
+            Main.getLogger().info("Wrote mappings to " + output);
+        }
+
+        boolean success = true;
+        if (sourcesOutput != null) {
+            Path output = resolveOutput(sourcesOutput, jarName);
+            int failures = SourceExporter.export(output, (done, total) -> {
+                if (done % 100 == 0 || done.equals(total)) {
+                    Main.getLogger().info("Decompiled " + done + "/" + total + " classes");
+                }
+            });
+            if (failures > 0) {
+                Main.getLogger().warning(failures + " classes could not be decompiled");
+                success = false;
+            }
+            Main.getLogger().info("Exported sources to " + output);
+        }
+
+        if (jarOutput != null) {
+            Path output = resolveOutput(jarOutput, jarName);
+            JarExporter.export(output, (done, total) -> {
+                if (done % 1000 == 0 || done.equals(total)) {
+                    Main.getLogger().info("Remapped " + done + "/" + total + " classes");
+                }
+            });
+            Main.getLogger().info("Exported remapped JAR to " + output);
+        }
+
+        return success;
+    }
+
+    private static Path resolveOutput(String template, String jarName) throws IOException {
+        Path path = Paths.get(template.replace(NAME_PLACEHOLDER, jarName)).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        return path;
+    }
+
+}
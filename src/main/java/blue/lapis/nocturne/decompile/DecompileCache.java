@@ -0,0 +1,239 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.decompile;
+
+import static blue.lapis.nocturne.util.Constants.DECOMPILE_CACHE_WEIGHT;
+import static blue.lapis.nocturne.util.Constants.DECOMPILE_DISK_CACHE_SIZE;
+import static blue.lapis.nocturne.util.Constants.FF_OPTIONS;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.util.Constants;
+import blue.lapis.nocturne.util.helper.PropertiesHelper;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of decompiled sources, keyed by the processed bytecode they were
+ * decompiled from.
+ *
+ * <p>Sources are retained in memory with least-recently-used eviction, and
+ * are optionally persisted to the Nocturne directory so that they survive
+ * restarts.</p>
+ */
+public class DecompileCache {
+
+    private static final String CACHE_DIRECTORY_NAME = "decompiled";
+    private static final String SOURCE_FILE_TAIL = ".java";
+
+    // bump whenever the processing or decompilation of classes changes in a way the version doesn't capture
+    private static final int CACHE_FORMAT = 1;
+
+    private final Cache<String, String> sources = CacheBuilder.newBuilder()
+            .maximumWeight(DECOMPILE_CACHE_WEIGHT)
+            .weigher((String key, String source) -> source.length())
+            .build();
+
+    private final Path directory;
+    // the total size in bytes of the sources persisted to the directory, approximate between prunes
+    private final AtomicLong directorySize = new AtomicLong();
+
+    public static DecompileCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    private DecompileCache() {
+        this.directory = openDirectory();
+    }
+
+    /**
+     * Returns the decompiled source for the given processed bytecode, invoking
+     * the given decompiler only if the source is not already cached.
+     *
+     * @param content The processed bytecode of the class and of every inner
+     *     class provided to the decompiler, in a stable order
+     * @param decompiler The function which decompiles the class
+     * @return The decompiled source
+     */
+    public String get(List<byte[]> content, Supplier<String> decompiler) {
+        String key = computeKey(content);
+        String source = sources.getIfPresent(key);
+        if (source == null) {
+            source = read(key);
+            if (source == null) {
+                source = decompiler.get();
+                write(key, source);
+            }
+            sources.put(key, source);
+        }
+        return source;
+    }
+
+    private static String computeKey(List<byte[]> content) {
+        Hasher hasher = Hashing.sha1().newHasher()
+                .putInt(CACHE_FORMAT)
+                .putString(Constants.VERSION, StandardCharsets.UTF_8)
+                .putString(FF_OPTIONS.toString(), StandardCharsets.UTF_8);
+        for (byte[] bytes : content) {
+            hasher.putInt(bytes.length).putBytes(bytes);
+        }
+        return hasher.hash().toString();
+    }
+
+    private String read(String key) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = directory.resolve(key + SOURCE_FILE_TAIL);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+            // bump the modification time so that pruning evicts the least recently used sources first
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return source;
+        } catch (IOException ex) {
+            Main.getLogger().warning("Failed to read cached source " + file);
+            return null;
+        }
+    }
+
+    private void write(String key, String source) {
+        if (directory == null) {
+            return;
+        }
+        Path file = directory.resolve(key + SOURCE_FILE_TAIL);
+        Path temp = null;
+        try {
+            // write to a temporary file first so that a concurrent reader never observes a partial source
+            temp = Files.createTempFile(directory, key, null);
+            Files.write(temp, source.getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (directorySize.addAndGet(Files.size(file)) > DECOMPILE_DISK_CACHE_SIZE) {
+                prune();
+            }
+        } catch (IOException ex) {
+            Main.getLogger().warning("Failed to persist decompiled source to " + file);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    Main.getLogger().warning("Failed to delete temporary file " + temp);
+                }
+            }
+        }
+    }
+
+    private Path openDirectory() {
+        // batch runs shouldn't fill the GUI's cache, and sources decompiled by a development build may be stale
+        // as soon as its code changes
+        if (Main.getInstance() == null || Main.getInstance().headless
+                || Constants.VERSION.equals(Constants.UNKNOWN_VERSION)
+                || !Boolean.parseBoolean(Main.getPropertiesHelper()
+                .getProperty(PropertiesHelper.Key.PERSIST_DECOMPILE_CACHE))) {
+            return null;
+        }
+        Path dir = new File(PropertiesHelper.getNocturneDirectory(), CACHE_DIRECTORY_NAME).toPath();
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException ex) {
+            Main.getLogger().warning("Failed to create decompile cache directory " + dir + " - not persisting");
+            return null;
+        }
+        directorySize.set(prune(dir));
+        return dir;
+    }
+
+    /**
+     * Prunes the cache directory, unless another thread has already brought
+     * it back within {@link Constants#DECOMPILE_DISK_CACHE_SIZE}.
+     */
+    private synchronized void prune() {
+        if (directorySize.get() > DECOMPILE_DISK_CACHE_SIZE) {
+            directorySize.set(prune(directory));
+        }
+    }
+
+    /**
+     * Deletes the least recently used sources persisted to the given directory
+     * until their total size is within {@link Constants#DECOMPILE_DISK_CACHE_SIZE}.
+     *
+     * @param dir The cache directory
+     * @return The total size in bytes of the sources remaining in the directory
+     */
+    private static long prune(Path dir) {
+        List<Path> files = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            stream.forEach(files::add);
+            for (Path file : files) {
+                total += Files.size(file);
+            }
+            if (total <= DECOMPILE_DISK_CACHE_SIZE) {
+                return total;
+            }
+            files.sort(Comparator.comparingLong(file -> file.toFile().lastModified()));
+            for (Path file : files) {
+                if (total <= DECOMPILE_DISK_CACHE_SIZE) {
+                    break;
+                }
+                total -= Files.size(file);
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException ex) {
+            Main.getLogger().warning("Failed to prune decompile cache directory " + dir);
+        }
+        return total;
+    }
+
+    /**
+     * Holds the singleton instance, which is created on first access so that
+     * {@link Main} is initialized before the cache directory is opened.
+     */
+    private static final class Holder {
+
+        private static final DecompileCache INSTANCE = new DecompileCache();
+
+    }
+
+}
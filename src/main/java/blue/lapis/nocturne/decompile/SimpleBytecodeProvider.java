@@ -25,18 +25,16 @@
 
 package blue.lapis.nocturne.decompile;
 
-import static blue.lapis.nocturne.util.Constants.Processing.CLASS_REGEX;
+import static blue.lapis.nocturne.util.Constants.Processing.CLASS_PREFIX;
+import static blue.lapis.nocturne.util.Constants.Processing.CLASS_SUFFIX;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 import blue.lapis.nocturne.Main;
-import blue.lapis.nocturne.jar.model.JarClassEntry;
 
 import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
 
 import java.io.IOException;
-import java.util.Optional;
-import java.util.regex.Matcher;
 
 /**
  * Implements {@link IBytecodeProvider}.
@@ -55,15 +53,12 @@ public class SimpleBytecodeProvider implements IBytecodeProvider {
 
     @Override
     public byte[] getBytecode(String externalPath, String internalPath) throws IOException {
-        Matcher matcher = CLASS_REGEX.matcher(internalPath);
-        if (!matcher.find()) {
-            throw new IllegalArgumentException("Class not found");
-        }
-        String name = matcher.group(1);
+        checkArgument(internalPath.startsWith(CLASS_PREFIX) && internalPath.endsWith(CLASS_SUFFIX),
+                "Class not found");
+        String name = internalPath.substring(CLASS_PREFIX.length(), internalPath.length() - CLASS_SUFFIX.length());
         checkState(Main.getLoadedJar() != null, "JAR is not loaded");
-        Optional<JarClassEntry> entry = Main.getLoadedJar().getClass(name);
-        checkArgument(entry.isPresent(), "Class not found");
-        return entry.get().getContent();
+        checkArgument(Main.getLoadedJar().getClass(name).isPresent(), "Class not found");
+        return Main.getLoadedJar().getProcessedContent(name);
     }
 
 }
@@ -0,0 +1,211 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.decompile;
+
+import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_CHAR;
+import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
+import static blue.lapis.nocturne.util.Constants.Processing.CLASS_PREFIX;
+import static blue.lapis.nocturne.util.Constants.Processing.CLASS_SUFFIX;
+import static blue.lapis.nocturne.util.Constants.Processing.DELIMITER;
+import static blue.lapis.nocturne.util.Constants.Processing.MEMBER_PREFIX;
+import static blue.lapis.nocturne.util.Constants.Processing.MEMBER_SUFFIX;
+
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.mapping.model.Mapping;
+import blue.lapis.nocturne.util.MemberType;
+import blue.lapis.nocturne.util.helper.MappingsHelper;
+import blue.lapis.nocturne.util.helper.StringHelper;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Optional;
+
+/**
+ * Static utility class for turning decompiled source containing processed
+ * names into plain Java source with mappings applied.
+ */
+public final class SourceRemapper {
+
+    private static final String PACKAGE_KEYWORD = "package ";
+    private static final ImmutableSet<String> DECLARATION_KEYWORDS
+            = ImmutableSet.of("class", "interface", "enum", "@interface");
+
+    private SourceRemapper() {
+    }
+
+    /**
+     * Replaces every processed name in the given decompiled source of a
+     * top-level class with its deobfuscated form, and rewrites the package
+     * declaration to match the deobfuscated name of the class.
+     *
+     * <p>Class names are written out fully qualified, except where they are
+     * being declared. Member names are replaced by their mapped names.</p>
+     *
+     * @param source The decompiled source
+     * @param className The obfuscated FQ name of the decompiled class
+     * @param context The {@link MappingContext} to apply
+     * @return The remapped source
+     */
+    public static String remap(String source, String className, MappingContext context) {
+        StringBuilder sb = new StringBuilder(source.length());
+
+        int start = 0;
+        if (source.startsWith(PACKAGE_KEYWORD)) {
+            int end = source.indexOf('\n');
+            start = end == -1 ? source.length() : end + 1;
+            // the decompiler follows the package declaration with a blank line
+            if (source.startsWith("\n", start)) {
+                start++;
+            }
+        }
+        String pkg = StringHelper.resolvePackageName(getDeobfuscatedName(className, context));
+        if (!pkg.isEmpty()) {
+            sb.append(PACKAGE_KEYWORD).append(pkg.replace(CLASS_PATH_SEPARATOR_CHAR, '.')).append(";\n\n");
+        }
+
+        int copied = start;
+        for (int i = start; i < source.length(); i++) {
+            char c = source.charAt(i);
+            int end;
+            if (c == CLASS_PREFIX.charAt(0) && source.startsWith(CLASS_PREFIX, i)) {
+                end = indexOnLine(source, CLASS_SUFFIX, i + CLASS_PREFIX.length() + 1);
+                if (end == -1) {
+                    continue;
+                }
+                sb.append(source, copied, i);
+                String name = source.substring(i + CLASS_PREFIX.length(), end);
+                String deobf = getDeobfuscatedName(name, context);
+                if (isDeclaration(sb)) {
+                    sb.append(StringHelper.unqualify(deobf));
+                } else {
+                    sb.append(deobf.replace(CLASS_PATH_SEPARATOR_CHAR, '.').replace(INNER_CLASS_SEPARATOR_CHAR, '.'));
+                }
+                end += CLASS_SUFFIX.length();
+            } else if (c == MEMBER_PREFIX.charAt(0) && source.startsWith(MEMBER_PREFIX, i)) {
+                int typeEnd = indexOnLine(source, DELIMITER, i + MEMBER_PREFIX.length());
+                int nameEnd = typeEnd == -1 ? -1 : indexOnLine(source, DELIMITER, typeEnd + DELIMITER.length());
+                end = nameEnd == -1 ? -1 : indexOnLine(source, MEMBER_SUFFIX, nameEnd + DELIMITER.length());
+                if (end == -1) {
+                    continue;
+                }
+                MemberType type;
+                try {
+                    type = MemberType.fromString(source.substring(i + MEMBER_PREFIX.length(), typeEnd));
+                } catch (IllegalArgumentException ex) {
+                    continue; // not a marker we emitted, so leave it as plain text
+                }
+                sb.append(source, copied, i);
+                sb.append(getDeobfuscatedMemberName(
+                        type,
+                        source.substring(typeEnd + DELIMITER.length(), nameEnd),
+                        source.substring(nameEnd + DELIMITER.length(), end),
+                        context
+                ));
+                end += MEMBER_SUFFIX.length();
+            } else {
+                continue;
+            }
+            copied = end;
+            i = end - 1;
+        }
+        sb.append(source, copied, source.length());
+        return sb.toString();
+    }
+
+    /**
+     * Returns the deobfuscated FQ name of the given class.
+     *
+     * @param className The obfuscated FQ name of the class
+     * @param context The {@link MappingContext} to apply
+     * @return The deobfuscated FQ name of the class
+     */
+    public static String getDeobfuscatedName(String className, MappingContext context) {
+        return ClassMapping.deobfuscate(context, className);
+    }
+
+    private static String getDeobfuscatedMemberName(MemberType type, String qualName, String descriptor,
+            MappingContext context) {
+        int offset = qualName.lastIndexOf(CLASS_PATH_SEPARATOR_CHAR);
+        String simpleName = qualName.substring(offset + 1);
+        if (offset == -1) {
+            return simpleName;
+        }
+        Optional<ClassMapping> parent = MappingsHelper.getClassMapping(context, qualName.substring(0, offset));
+        if (parent.isPresent()) {
+            Mapping mapping = type == MemberType.FIELD
+                    ? parent.get().getFieldMappings().get(simpleName)
+                    : parent.get().getMethodMappings().get(simpleName + descriptor);
+            if (mapping != null) {
+                return mapping.getDeobfuscatedName();
+            }
+        }
+        return simpleName;
+    }
+
+    /**
+     * Returns the index of the given string in the given source, starting
+     * from the given index, so long as it ends before the end of the line.
+     *
+     * @param source The source to search
+     * @param str The string to search for
+     * @param from The index to start searching from
+     * @return The index of the string, or -1 if it does not occur on the line
+     */
+    private static int indexOnLine(String source, String str, int from) {
+        int lineEnd = source.indexOf('\n', from);
+        int last = (lineEnd == -1 ? source.length() : lineEnd) - str.length();
+        for (int i = from; i <= last; i++) {
+            if (source.startsWith(str, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns whether the given source ends with a keyword introducing a
+     * type declaration, followed by whitespace.
+     *
+     * @param source The source preceding a class name
+     * @return Whether the class name is being declared
+     */
+    private static boolean isDeclaration(CharSequence source) {
+        int end = source.length();
+        while (end > 0 && Character.isWhitespace(source.charAt(end - 1))) {
+            end--;
+        }
+        if (end == source.length()) {
+            return false;
+        }
+        int start = end;
+        while (start > 0 && !Character.isWhitespace(source.charAt(start - 1))) {
+            start--;
+        }
+        return DECLARATION_KEYWORDS.contains(source.subSequence(start, end).toString());
+    }
+
+}
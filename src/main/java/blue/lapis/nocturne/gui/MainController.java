@@ -25,6 +25,7 @@
 
 package blue.lapis.nocturne.gui;
 
+import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_PATTERN;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import blue.lapis.nocturne.Main;
@@ -33,14 +34,15 @@ import blue.lapis.nocturne.gui.io.mappings.MappingsOpenDialogHelper;
 import blue.lapis.nocturne.gui.io.mappings.MappingsSaveDialogHelper;
 import blue.lapis.nocturne.gui.scene.control.ClassTreeItem;
 import blue.lapis.nocturne.gui.scene.control.CodeTab;
-import blue.lapis.nocturne.gui.scene.text.SelectableMember;
 import blue.lapis.nocturne.jar.model.JarClassEntry;
-import blue.lapis.nocturne.jar.model.hierarchy.Hierarchy;
 import blue.lapis.nocturne.jar.model.hierarchy.HierarchyElement;
 import blue.lapis.nocturne.jar.model.hierarchy.HierarchyNode;
+import blue.lapis.nocturne.mapping.MappingChangeEvent;
+import blue.lapis.nocturne.mapping.model.TopLevelClassMapping;
 import blue.lapis.nocturne.util.Constants;
 import blue.lapis.nocturne.util.helper.PropertiesHelper;
 import blue.lapis.nocturne.util.helper.SceneHelper;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -62,6 +64,12 @@ import javafx.scene.input.MouseEvent;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
 import java.util.function.BiConsumer;
@@ -75,11 +83,26 @@ public class MainController implements Initializable {
 
     private static final Alert RESTART_ALERT = new Alert(Alert.AlertType.WARNING);
 
+    // packages before classes, each sorted by name
+    private static final Comparator<TreeItem<String>> TREE_ITEM_COMPARATOR = (t1, t2) -> {
+        boolean c1 = t1.getChildren().size() > 0;
+        boolean c2 = t2.getChildren().size() > 0;
+        if (c1 == c2) { // both either terminal or non-terminal
+            return t1.getValue().compareTo(t2.getValue());
+        } else if (c1) { // first is non-terminal, second is terminal
+            return -1;
+        } else { // first is terminal, second is non-terminal
+            return 1;
+        }
+    };
+
     public MenuItem openJarButton;
     public MenuItem closeJarButton;
     public MenuItem loadMappingsButton;
     public MenuItem saveMappingsButton;
     public MenuItem saveMappingsAsButton;
+    public MenuItem exportSourcesButton;
+    public MenuItem exportJarButton;
     public MenuItem closeButton;
 
     public MenuItem resetMappingsButton;
@@ -103,6 +126,8 @@ public class MainController implements Initializable {
         loadMappingsButton.setDisable(Main.getLoadedJar() == null);
         saveMappingsButton.setDisable(Main.getLoadedJar() == null);
         saveMappingsAsButton.setDisable(Main.getLoadedJar() == null);
+        exportSourcesButton.setDisable(Main.getLoadedJar() == null);
+        exportJarButton.setDisable(Main.getLoadedJar() == null);
         resetMappingsButton.setDisable(Main.getLoadedJar() == null);
 
         final String langRadioPrefix = "langRadio-";
@@ -117,6 +142,14 @@ public class MainController implements Initializable {
 
         this.initTreeViews();
 
+        Main.getMappingContext().addListener(events -> {
+            if (Platform.isFxApplicationThread()) {
+                onMappingsChanged(events);
+            } else {
+                Platform.runLater(() -> onMappingsChanged(events));
+            }
+        });
+
         RESTART_ALERT.setTitle(Main.getResourceBundle().getString("dialog.restart.title"));
         RESTART_ALERT.setHeaderText(null);
         RESTART_ALERT.setContentText(Main.getResourceBundle().getString("dialog.restart.content"));
@@ -184,17 +217,17 @@ public class MainController implements Initializable {
         loadMappingsButton.setDisable(true);
         saveMappingsButton.setDisable(true);
         saveMappingsAsButton.setDisable(true);
+        exportSourcesButton.setDisable(true);
+        exportJarButton.setDisable(true);
         resetMappingsButton.setDisable(true);
 
         Main.getMappingContext().clear();
         Main.getMappingContext().setDirty(false);
-
         updateClassViews();
     }
 
     public void loadMappings(ActionEvent actionEvent) throws IOException {
         MappingsOpenDialogHelper.openMappings();
-        updateClassViews();
     }
 
     public void resetMappings(ActionEvent actionEvent) {
@@ -205,12 +238,13 @@ public class MainController implements Initializable {
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
-        Main.getMappingContext().clear();
-        Main.getLoadedJar().getClasses().forEach(jce -> jce.setDeobfuscated(false));
-        CodeTab.CODE_TABS.values().forEach(CodeTab::resetClassName);
-        SelectableMember.MEMBERS.values()
-                .forEach(list -> list.forEach(member -> member.setAndProcessText(member.getName())));
-        updateClassViews();
+        Main.getMappingContext().batch(() -> {
+            Main.getMappingContext().clear();
+            Main.getLoadedJar().getClasses().forEach(jce -> jce.setDeobfuscated(false));
+            CodeTab.CODE_TABS.values().forEach(CodeTab::resetClassName);
+            CodeTab.CODE_TABS.values()
+                    .forEach(tab -> tab.forEachMember(member -> member.setAndProcessText(member.getName())));
+        });
     }
 
     public void saveMappings(ActionEvent actionEvent) throws IOException {
@@ -221,6 +255,14 @@ public class MainController implements Initializable {
         MappingsSaveDialogHelper.saveMappingsAs();
     }
 
+    public void exportSources(ActionEvent actionEvent) {
+        JarDialogHelper.exportSources();
+    }
+
+    public void exportJar(ActionEvent actionEvent) {
+        JarDialogHelper.exportJar();
+    }
+
     public void onClose(ActionEvent actionEvent) {
         try {
             if (MappingsSaveDialogHelper.doDirtyConfirmation()) {
@@ -282,51 +324,65 @@ public class MainController implements Initializable {
         }
     }
 
+    /**
+     * Generates a tree item for the given hierarchy element, reusing the given
+     * old item and any of its descendants which are still present. Classes
+     * are matched by id and packages by name, and only levels whose children
+     * actually changed are re-sorted.
+     *
+     * @param element The element to generate a tree item for
+     * @param oldTreeItem The item previously generated for the element, or
+     *     {@code null}
+     * @return The reconciled tree item
+     */
     public TreeItem<String> generateTreeItem(HierarchyElement element, TreeItem<String> oldTreeItem) {
-        TreeItem<String> treeItem;
-        if (element instanceof HierarchyNode) {
+        if (element instanceof HierarchyNode && ((HierarchyNode) element).isTerminal()) {
             HierarchyNode node = (HierarchyNode) element;
-            if (node.isTerminal()) {
-                treeItem = new ClassTreeItem(node.getId(), node.getDisplayName());
-            } else {
-                treeItem = new TreeItem<>(node.getDisplayName());
+            if (oldTreeItem instanceof ClassTreeItem && ((ClassTreeItem) oldTreeItem).getId().equals(node.getId())) {
+                if (!oldTreeItem.getValue().equals(node.getDisplayName())) {
+                    oldTreeItem.setValue(node.getDisplayName());
+                }
+                return oldTreeItem;
             }
+            return new ClassTreeItem(node.getId(), node.getDisplayName());
+        }
+
+        TreeItem<String> treeItem;
+        if (oldTreeItem != null && !(oldTreeItem instanceof ClassTreeItem)) {
+            treeItem = oldTreeItem;
+        } else if (element instanceof HierarchyNode) {
+            treeItem = new TreeItem<>(((HierarchyNode) element).getDisplayName());
         } else {
             treeItem = new TreeItem<>("(root)");
         }
-        if (oldTreeItem != null) {
-            treeItem.setExpanded(oldTreeItem.isExpanded());
-        }
-        if (element instanceof Hierarchy
-                || (element instanceof HierarchyNode && !((HierarchyNode) element).isTerminal())) {
-            for (HierarchyNode node : element.getChildren()) {
-                if (oldTreeItem != null) {
-                    boolean added = false;
-                    for (TreeItem<String> child : oldTreeItem.getChildren()) {
-                        if (node.getDisplayName().equalsIgnoreCase(child.getValue())) {
-                            treeItem.getChildren().add(this.generateTreeItem(node, child));
-                            added = true;
-                        }
-                    }
-                    if (!added) {
-                        treeItem.getChildren().add(this.generateTreeItem(node, null));
-                    }
-                } else {
-                    treeItem.getChildren().add(this.generateTreeItem(node, null));
-                }
+
+        Map<String, TreeItem<String>> oldClasses = new HashMap<>();
+        Map<String, TreeItem<String>> oldPackages = new HashMap<>();
+        for (TreeItem<String> child : treeItem.getChildren()) {
+            if (child instanceof ClassTreeItem) {
+                oldClasses.put(((ClassTreeItem) child).getId(), child);
+            } else {
+                oldPackages.put(child.getValue(), child);
             }
         }
-        treeItem.getChildren().setAll(treeItem.getChildren().sorted((t1, t2) -> {
-            boolean c1 = t1.getChildren().size() > 0;
-            boolean c2 = t2.getChildren().size() > 0;
-            if (c1 == c2) { // both either terminal or non-terminal
-                return t1.getValue().compareTo(t2.getValue());
-            } else if (c1) { // first is non-terminal, second is terminal
-                return -1;
-            } else { // first is terminal, second is non-terminal
-                return 1;
-            }
-        }));
+
+        List<HierarchyNode> nodes = element.getChildren();
+        List<TreeItem<String>> children = new ArrayList<>(nodes.size());
+        boolean changed = nodes.size() != treeItem.getChildren().size();
+        for (HierarchyNode node : nodes) {
+            TreeItem<String> oldChild = node.isTerminal()
+                    ? oldClasses.get(node.getId())
+                    : oldPackages.get(node.getDisplayName());
+            String oldValue = oldChild != null ? oldChild.getValue() : null;
+            TreeItem<String> child = generateTreeItem(node, oldChild);
+            changed |= child != oldChild || !child.getValue().equals(oldValue);
+            children.add(child);
+        }
+
+        if (changed) {
+            children.sort(TREE_ITEM_COMPARATOR);
+            treeItem.getChildren().setAll(children);
+        }
         return treeItem;
     }
 
@@ -335,13 +391,111 @@ public class MainController implements Initializable {
         updateDeobfuscatedClassListView();
     }
 
+    private void onMappingsChanged(List<MappingChangeEvent> events) {
+        // clearing or merging may touch every class, so just rebuild the views in that case
+        // (this also empties them if the JAR has since been closed)
+        if (events.stream().anyMatch(event -> event.getType() == MappingChangeEvent.Type.CLEARED
+                || event.getType() == MappingChangeEvent.Type.MERGED)) {
+            updateClassViews();
+            return;
+        }
+
+        if (Main.getLoadedJar() == null || obfTree.getRoot() == null || deobfTree.getRoot() == null) {
+            return;
+        }
+
+        for (MappingChangeEvent event : events) {
+            if (event.getType() == MappingChangeEvent.Type.CLASS_RENAMED
+                    && event.getMapping() instanceof TopLevelClassMapping) {
+                moveClassTreeItem((TopLevelClassMapping) event.getMapping(), event.getPreviousName());
+            }
+        }
+    }
+
+    /**
+     * Moves the tree item of the class represented by the given mapping to
+     * its current place in the class views, leaving the rest of the trees
+     * untouched.
+     *
+     * @param mapping The mapping of the renamed class
+     * @param previousName The deobfuscated name of the class before the
+     *     change
+     */
+    private void moveClassTreeItem(TopLevelClassMapping mapping, String previousName) {
+        Optional<JarClassEntry> entry = Main.getLoadedJar().getClass(mapping.getObfuscatedName());
+        if (!entry.isPresent()) {
+            return;
+        }
+
+        String id = mapping.getObfuscatedName();
+        removeClassTreeItem(obfTree.getRoot(), id, id);
+        removeClassTreeItem(deobfTree.getRoot(), previousName, id);
+        if (entry.get().isDeobfuscated()) {
+            addClassTreeItem(deobfTree.getRoot(), mapping.getDeobfuscatedName(), id);
+        } else {
+            addClassTreeItem(obfTree.getRoot(), id, id);
+        }
+    }
+
+    private static void removeClassTreeItem(TreeItem<String> root, String path, String id) {
+        String[] parts = CLASS_PATH_SEPARATOR_PATTERN.split(path);
+        TreeItem<String> parent = root;
+        for (int i = 0; i < parts.length - 1 && parent != null; i++) {
+            parent = getPackageTreeItem(parent, parts[i]);
+        }
+        if (parent == null || !parent.getChildren().removeIf(child -> child instanceof ClassTreeItem
+                && ((ClassTreeItem) child).getId().equals(id))) {
+            return;
+        }
+
+        // prune any packages left empty
+        while (parent != root && parent.getChildren().isEmpty()) {
+            TreeItem<String> grandparent = parent.getParent();
+            grandparent.getChildren().remove(parent);
+            parent = grandparent;
+        }
+    }
+
+    private static void addClassTreeItem(TreeItem<String> root, String path, String id) {
+        String[] parts = CLASS_PATH_SEPARATOR_PATTERN.split(path);
+        TreeItem<String> parent = root;
+        int depth = 0;
+        for (; depth < parts.length - 1; depth++) {
+            TreeItem<String> child = getPackageTreeItem(parent, parts[depth]);
+            if (child == null) {
+                break;
+            }
+            parent = child;
+        }
+
+        // build any missing packages bottom-up so that they sort as packages when inserted
+        TreeItem<String> item = new ClassTreeItem(id, parts[parts.length - 1]);
+        for (int i = parts.length - 2; i >= depth; i--) {
+            TreeItem<String> pkg = new TreeItem<>(parts[i]);
+            pkg.getChildren().add(item);
+            item = pkg;
+        }
+
+        int index = Collections.binarySearch(parent.getChildren(), item, TREE_ITEM_COMPARATOR);
+        parent.getChildren().add(index < 0 ? -index - 1 : index, item);
+    }
+
+    private static TreeItem<String> getPackageTreeItem(TreeItem<String> parent, String name) {
+        for (TreeItem<String> child : parent.getChildren()) {
+            if (!(child instanceof ClassTreeItem) && child.getValue().equals(name)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
     private boolean deinitializeCurrentJar() throws IOException {
         if (MappingsSaveDialogHelper.doDirtyConfirmation()) {
             return false;
         }
-        Main.getMappingContext().clear();
         closeAllTabs();
         Main.setLoadedJar(null);
+        Main.getMappingContext().clear();
         return true;
     }
 
@@ -362,7 +516,7 @@ public class MainController implements Initializable {
 
             Optional<JarClassEntry> clazz = Main.getLoadedJar().getClass(className);
             checkArgument(clazz.isPresent(), "Cannot find class entry for " + className);
-            tab.setCode(clazz.get().decompile());
+            tab.setCode(clazz.get().decompileAsync());
         }
     }
 
@@ -27,17 +27,23 @@ package blue.lapis.nocturne.gui.io.jar;
 
 import blue.lapis.nocturne.Main;
 import blue.lapis.nocturne.gui.MainController;
+import blue.lapis.nocturne.jar.io.JarExporter;
 import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.jar.io.SourceExporter;
 import blue.lapis.nocturne.jar.model.ClassSet;
 import blue.lapis.nocturne.util.helper.PropertiesHelper;
 
+import javafx.concurrent.Task;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.Dialog;
+import javafx.scene.control.ProgressBar;
 import javafx.stage.FileChooser;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.zip.ZipException;
 
 /**
  * Static utility class for JAR open/save dialogs.
@@ -82,17 +88,142 @@ public final class JarDialogHelper {
             loadDialog.show();
             ClassSet classSet;
             try {
-                classSet = JarLoader.loadJar(selectedFile.getAbsolutePath(), new FileInputStream(selectedFile));
+                classSet = JarLoader.loadJar(selectedFile);
+            } catch (ZipException ex) {
+                showInvalidAlert();
+                return;
             } finally {
                 loadDialog.close();
             }
-            if (classSet != null) {
+            if (classSet == null) {
+                showEmptyAlert();
+            } else {
                 controller.closeJarButton.setDisable(false);
                 controller.loadMappingsButton.setDisable(false);
                 controller.saveMappingsAsButton.setDisable(false);
+                controller.exportSourcesButton.setDisable(false);
+                controller.exportJarButton.setDisable(false);
                 controller.resetMappingsButton.setDisable(false);
             }
         }
     }
 
+    private static void showInvalidAlert() {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setHeaderText(null);
+        alert.setContentText(Main.getResourceBundle().getString("jarload.invalid"));
+        alert.showAndWait();
+    }
+
+    private static void showEmptyAlert() {
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setHeaderText(null);
+        alert.setContentText(Main.getResourceBundle().getString("jarload.empty"));
+        alert.showAndWait();
+    }
+
+    public static void exportSources() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(Main.getResourceBundle().getString("filechooser.export_sources"));
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter(Main.getResourceBundle().getString("filechooser.type_zip"),
+                        "*" + SourceExporter.ZIP_FILE_TAIL),
+                new FileChooser.ExtensionFilter(Main.getResourceBundle().getString("filechooser.type_all"), "*")
+        );
+        String jarName = new File(Main.getLoadedJar().getName()).getName();
+        if (jarName.endsWith(".jar")) {
+            jarName = jarName.substring(0, jarName.length() - ".jar".length());
+        }
+        fileChooser.setInitialFileName(jarName + "-sources" + SourceExporter.ZIP_FILE_TAIL);
+
+        File selectedFile = fileChooser.showSaveDialog(Main.getMainStage());
+        if (selectedFile == null) {
+            return;
+        }
+
+        Task<Integer> task = new Task<Integer>() {
+            @Override
+            protected Integer call() throws Exception {
+                return SourceExporter.export(selectedFile.toPath(), (done, total) -> updateProgress(done, total));
+            }
+        };
+
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.progressProperty().bind(task.progressProperty());
+        progressBar.setPrefWidth(300);
+
+        Dialog<ButtonType> exportDialog = new Dialog<>();
+        exportDialog.setTitle(Main.getResourceBundle().getString("dialog.export_sources.title"));
+        exportDialog.setHeaderText(Main.getResourceBundle().getString("dialog.export_sources.content"));
+        exportDialog.getDialogPane().setContent(progressBar);
+        exportDialog.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+        exportDialog.setOnCloseRequest(event -> task.cancel());
+
+        task.setOnSucceeded(event -> {
+            exportDialog.close();
+            if (task.getValue() > 0) {
+                Main.getLogger().warning(task.getValue() + " classes could not be decompiled");
+            }
+        });
+        task.setOnCancelled(event -> exportDialog.close());
+        task.setOnFailed(event -> {
+            exportDialog.close();
+            throw new RuntimeException("Failed to export sources", task.getException());
+        });
+
+        Thread thread = new Thread(task, "Nocturne-Source-Export");
+        thread.setDaemon(true);
+        thread.start();
+        exportDialog.show();
+    }
+
+    public static void exportJar() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(Main.getResourceBundle().getString("filechooser.export_jar"));
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter(Main.getResourceBundle().getString("filechooser.type_jar"), "*.jar")
+        );
+        String jarName = new File(Main.getLoadedJar().getName()).getName();
+        if (jarName.endsWith(".jar")) {
+            jarName = jarName.substring(0, jarName.length() - ".jar".length());
+        }
+        fileChooser.setInitialFileName(jarName + "-deobf.jar");
+
+        File selectedFile = fileChooser.showSaveDialog(Main.getMainStage());
+        if (selectedFile == null) {
+            return;
+        }
+
+        Task<Void> task = new Task<Void>() {
+            @Override
+            protected Void call() throws Exception {
+                JarExporter.export(selectedFile.toPath(), (done, total) -> updateProgress(done, total));
+                return null;
+            }
+        };
+
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.progressProperty().bind(task.progressProperty());
+        progressBar.setPrefWidth(300);
+
+        Dialog<ButtonType> exportDialog = new Dialog<>();
+        exportDialog.setTitle(Main.getResourceBundle().getString("dialog.export_jar.title"));
+        exportDialog.setHeaderText(Main.getResourceBundle().getString("dialog.export_jar.content"));
+        exportDialog.getDialogPane().setContent(progressBar);
+        exportDialog.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+        exportDialog.setOnCloseRequest(event -> task.cancel());
+
+        task.setOnSucceeded(event -> exportDialog.close());
+        task.setOnCancelled(event -> exportDialog.close());
+        task.setOnFailed(event -> {
+            exportDialog.close();
+            throw new RuntimeException("Failed to export JAR", task.getException());
+        });
+
+        Thread thread = new Thread(task, "Nocturne-JAR-Export");
+        thread.setDaemon(true);
+        thread.start();
+        exportDialog.show();
+    }
+
 }
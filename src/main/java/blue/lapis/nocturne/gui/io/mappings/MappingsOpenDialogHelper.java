@@ -26,17 +26,13 @@
 package blue.lapis.nocturne.gui.io.mappings;
 
 import blue.lapis.nocturne.Main;
-import blue.lapis.nocturne.gui.MainController;
 import blue.lapis.nocturne.mapping.MappingContext;
 import blue.lapis.nocturne.mapping.io.reader.MappingReaderType;
-import blue.lapis.nocturne.mapping.io.reader.MappingsReader;
 import blue.lapis.nocturne.util.helper.PropertiesHelper;
 
 import javafx.stage.FileChooser;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -73,13 +69,10 @@ public final class MappingsOpenDialogHelper {
         Path selectedPath = selectedFile.toPath();
 
         if (Files.exists(selectedPath)) { //TODO: isn't this redundant?
-            try (MappingsReader reader = MappingReaderType.fromExtensionFilter(fileChooser.getSelectedExtensionFilter())
-                    .constructReader(new BufferedReader(new FileReader(selectedFile)))) {
-                MappingContext context = reader.read();
-                Main.getMappingContext().assimilate(context);
-                MainController.INSTANCE.updateClassViews();
-                Main.getMappingContext().setDirty(false);
-            }
+            MappingContext context = MappingReaderType.fromExtensionFilter(fileChooser.getSelectedExtensionFilter())
+                    .read(selectedPath);
+            Main.getMappingContext().assimilate(context);
+            Main.getMappingContext().setDirty(false);
 
             Main.setCurrentMappingsPath(selectedPath);
         }
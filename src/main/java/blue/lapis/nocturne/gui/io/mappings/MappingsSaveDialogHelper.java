@@ -26,7 +26,7 @@
 package blue.lapis.nocturne.gui.io.mappings;
 
 import blue.lapis.nocturne.Main;
-import blue.lapis.nocturne.mapping.io.writer.SrgWriter;
+import blue.lapis.nocturne.mapping.io.writer.MappingWriterType;
 import blue.lapis.nocturne.util.helper.PropertiesHelper;
 
 import javafx.scene.control.Alert;
@@ -35,9 +35,9 @@ import javafx.stage.FileChooser;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 
 /**
  * Static utility class for dialogs for saving mappings.
@@ -59,10 +59,10 @@ public final class MappingsSaveDialogHelper {
     public static boolean saveMappingsAs() throws IOException {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle(Main.getResourceBundle().getString("filechooser.save_mapping"));
-        fileChooser.getExtensionFilters().addAll(
-                new FileChooser.ExtensionFilter(Main.getResourceBundle().getString("filechooser.type_srg"), "*.srg"),
-                new FileChooser.ExtensionFilter(Main.getResourceBundle().getString("filechooser.type_all"), "*.*")
-        );
+        Arrays.asList(MappingWriterType.values())
+                .forEach(t -> fileChooser.getExtensionFilters().add(t.getExtensionFilter()));
+        fileChooser.getExtensionFilters().add(
+                new FileChooser.ExtensionFilter(Main.getResourceBundle().getString("filechooser.type_all"), "*.*"));
 
         String lastDir = Main.getPropertiesHelper().getProperty(PropertiesHelper.Key.LAST_MAPPINGS_DIRECTORY);
         if (!lastDir.isEmpty()) {
@@ -78,6 +78,13 @@ public final class MappingsSaveDialogHelper {
         }
         Main.getPropertiesHelper().setProperty(PropertiesHelper.Key.LAST_MAPPINGS_DIRECTORY, selectedFile.getParent());
 
+        // the format is determined by the extension, so make sure the file has the selected one
+        MappingWriterType selectedType
+                = MappingWriterType.fromExtensionFilter(fileChooser.getSelectedExtensionFilter());
+        if (selectedType != null && !MappingWriterType.fromFileName(selectedFile.getName()).isPresent()) {
+            selectedFile = new File(selectedFile.getPath() + "." + selectedType.getExtension());
+        }
+
         Path selectedPath = selectedFile.toPath();
 
         if (Files.notExists(selectedPath)) {
@@ -96,9 +103,9 @@ public final class MappingsSaveDialogHelper {
 
     private static void saveMappings0() throws IOException {
         if (Main.getMappingContext().isDirty()) {
-            try (SrgWriter writer = new SrgWriter(new PrintWriter(Main.getCurrentMappingsPath().toFile()))) {
-                writer.write(Main.getMappingContext());
-            }
+            Path path = Main.getCurrentMappingsPath();
+            MappingWriterType type = MappingWriterType.fromFileName(path.toString()).orElse(MappingWriterType.SRG);
+            type.write(Main.getMappingContext(), path);
 
             Main.getMappingContext().setDirty(false);
         }
@@ -26,20 +26,21 @@
 package blue.lapis.nocturne.gui.scene.control;
 
 import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_PATTERN;
-import static blue.lapis.nocturne.util.Constants.Processing.CLASS_REGEX;
-import static blue.lapis.nocturne.util.Constants.Processing.MEMBER_REGEX;
 
 import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.gui.scene.text.CodeSpan;
 import blue.lapis.nocturne.gui.scene.text.SelectableMember;
 import blue.lapis.nocturne.util.JavaSyntaxHighlighter;
 import blue.lapis.nocturne.util.MemberType;
 import blue.lapis.nocturne.util.helper.StringHelper;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 import javafx.scene.text.Font;
@@ -48,10 +49,15 @@ import javafx.scene.text.TextFlow;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
 /**
  * The code-tab JavaFX component.
@@ -60,13 +66,22 @@ public class CodeTab extends Tab {
 
     public static final Map<String, CodeTab> CODE_TABS = Maps.newHashMap();
 
+    // the tabs currently displaying each member; held weakly so that a tab
+    // discarded without being closed can't keep its nodes alive
+    private static final Map<SelectableMember.MemberKey, Set<CodeTab>> TABS_BY_MEMBER = new HashMap<>();
+
     private final String className;
+    private final Font codeFont = Font.font("monospace", Font.getDefault().getSize());
+
+    private final Map<SelectableMember.MemberKey, List<SelectableMember>> members = new HashMap<>();
+
+    private CompletableFuture<String> pendingCode;
 
     public Label memberIdentifierLabel;
     public Label memberInfoLabel;
     public Label memberIdentifier;
     public Label memberInfo;
-    public TextFlow code;
+    public ListView<CodeSpan[]> code;
 
     public CodeTab(TabPane pane, String className, String displayName) {
         this.className = className;
@@ -85,10 +100,22 @@ public class CodeTab extends Tab {
             e.printStackTrace();
         }
 
+        // only the visible lines are ever turned into nodes, so every line
+        // must have the same height for the list to lay them out
+        Text probe = new Text("X");
+        probe.setFont(codeFont);
+        code.setFixedCellSize(Math.ceil(probe.getLayoutBounds().getHeight()));
+        code.setCellFactory(view -> new CodeLineCell());
+
         CODE_TABS.put(className, this);
         getTabPane().getSelectionModel().select(this);
 
-        this.setOnClosed(event -> CODE_TABS.remove(this.getClassName()));
+        this.setOnClosed(event -> {
+            cancelPendingCode();
+            code.getItems().clear();
+            releaseMembers();
+            CODE_TABS.remove(this.getClassName());
+        });
     }
 
     public String getClassName() {
@@ -134,28 +161,110 @@ public class CodeTab extends Tab {
         this.memberInfo.setText(info);
     }
 
+    /**
+     * Sets the open source file's code once it becomes available, displaying a
+     * placeholder in the meantime.
+     *
+     * <p>The given future is cancelled if this tab is closed or its code is
+     * set again before it completes.</p>
+     *
+     * @param code The future code
+     */
+    public void setCode(CompletableFuture<String> code) {
+        cancelPendingCode();
+        pendingCode = code;
+
+        Label placeholder = new Label(Main.getResourceBundle().getString("codetab.decompiling"));
+        placeholder.setFont(codeFont);
+        this.code.setPlaceholder(placeholder);
+        this.code.getItems().clear();
+
+        code.whenComplete((result, throwable) -> Platform.runLater(() -> {
+            if (pendingCode != code) {
+                return; // superseded or cancelled
+            }
+            pendingCode = null;
+            if (throwable != null) {
+                Main.getLogger().log(Level.SEVERE, "Failed to decompile class " + className, throwable);
+                Label error = new Label(Main.getResourceBundle().getString("codetab.decompile_failed"));
+                error.setFont(codeFont);
+                this.code.setPlaceholder(error);
+                return;
+            }
+            setCode(result);
+        }));
+    }
+
     /**
      * Sets the open source file's code.
      *
      * @param code The code.
      */
     public void setCode(String code) {
-        this.code.getChildren().clear();
+        List<CodeSpan[]> lines = JavaSyntaxHighlighter.highlight(code);
 
-        List<Node> nodes = Lists.newArrayList(new Text(code));
+        releaseMembers();
+        this.code.getItems().setAll(lines);
+    }
 
-        parseItems(nodes, CLASS_REGEX, 1);
-        parseItems(nodes, MEMBER_REGEX, 2);
+    /**
+     * Performs the given action for each {@link SelectableMember} currently
+     * displayed by any tab for the given member.
+     *
+     * @param key The key of the member
+     * @param action The action to perform
+     */
+    public static void forEachMember(SelectableMember.MemberKey key, Consumer<SelectableMember> action) {
+        Set<CodeTab> tabs = TABS_BY_MEMBER.get(key);
+        if (tabs != null) {
+            for (CodeTab tab : tabs) {
+                tab.members.getOrDefault(key, Collections.emptyList()).forEach(action);
+            }
+        }
+    }
 
-        JavaSyntaxHighlighter.highlight(nodes);
+    /**
+     * Performs the given action for each {@link SelectableMember} currently
+     * displayed by this tab.
+     *
+     * @param action The action to perform
+     */
+    public void forEachMember(Consumer<SelectableMember> action) {
+        members.values().forEach(list -> list.forEach(action));
+    }
+
+    private void registerMember(SelectableMember member) {
+        members.computeIfAbsent(member.getKey(), key -> {
+            TABS_BY_MEMBER.computeIfAbsent(key, k -> Collections.newSetFromMap(new WeakHashMap<>())).add(this);
+            return new ArrayList<>();
+        }).add(member);
+    }
+
+    private void unregisterMember(SelectableMember member) {
+        List<SelectableMember> list = members.get(member.getKey());
+        if (list != null && list.remove(member) && list.isEmpty()) {
+            members.remove(member.getKey());
+            untrackMember(member.getKey());
+        }
+    }
 
-        nodes.forEach(node -> ((Text) node).setFont(Font.font("monospace", ((Text) node).getFont().getSize())));
+    private void releaseMembers() {
+        members.keySet().forEach(this::untrackMember);
+        members.clear();
+    }
 
-        Node[] nodeArr = new Node[nodes.size()];
-        nodes.toArray(nodeArr);
-        TextFlow flow = new TextFlow(nodeArr);
+    private void untrackMember(SelectableMember.MemberKey key) {
+        Set<CodeTab> tabs = TABS_BY_MEMBER.get(key);
+        if (tabs != null && tabs.remove(this) && tabs.isEmpty()) {
+            TABS_BY_MEMBER.remove(key);
+        }
+    }
 
-        this.code.getChildren().add(flow);
+    private void cancelPendingCode() {
+        if (pendingCode != null) {
+            pendingCode.cancel(false);
+            pendingCode = null;
+        }
     }
 
     public enum SelectableMemberType {
@@ -222,33 +331,55 @@ public class CodeTab extends Tab {
         }
     }
 
-    public void parseItems(List<Node> nodes, Pattern pattern, int defaultGroup) {
-        List<Node> newNodes = new ArrayList<>();
+    /**
+     * A cell displaying a single line of code, creating the nodes for its
+     * spans only while it is in use.
+     */
+    private class CodeLineCell extends ListCell<CodeSpan[]> {
+
+        private final List<SelectableMember> lineMembers = new ArrayList<>();
+
+        @Override
+        protected void updateItem(CodeSpan[] line, boolean empty) {
+            super.updateItem(line, empty);
 
-        for (Node node : nodes) {
-            if (node.getClass() != Text.class) {
-                newNodes.add(node);
-                continue;
+            lineMembers.forEach(CodeTab.this::unregisterMember);
+            lineMembers.clear();
+
+            if (empty || line == null) {
+                setGraphic(null);
+                return;
             }
 
-            String str = ((Text) node).getText();
-            Matcher matcher = pattern.matcher(str);
-            int lastIndex = 0;
-            while (matcher.find()) {
-                newNodes.add(new Text(str.substring(lastIndex, matcher.start())));
-                SelectableMember sm = SelectableMember.fromMatcher(this, matcher);
-                if (sm != null) {
-                    newNodes.add(sm);
-                } else {
-                    newNodes.add(new Text(StringHelper.unqualify(matcher.group(defaultGroup))));
+            Node[] nodes = new Node[line.length];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = createNode(line[i]);
+            }
+            setGraphic(new TextFlow(nodes));
+        }
+
+        private Text createNode(CodeSpan span) {
+            Text node;
+            if (span.isMember()) {
+                try {
+                    SelectableMember member = new SelectableMember(CodeTab.this, span.getMemberType(),
+                            span.getText(), span.getDescriptor(), span.getParentClass());
+                    lineMembers.add(member);
+                    registerMember(member);
+                    node = member;
+                } catch (IllegalArgumentException ex) {
+                    node = new Text(StringHelper.unqualify(span.getText()));
+                }
+            } else {
+                node = new Text(span.getText());
+                if (span.getStyleClass() != null) {
+                    node.getStyleClass().addAll("syntax", span.getStyleClass());
                 }
-                lastIndex = matcher.end();
             }
-            newNodes.add(new Text(str.substring(lastIndex)));
+            node.setFont(codeFont);
+            return node;
         }
 
-        nodes.clear();
-        nodes.addAll(newNodes);
     }
 
 }
@@ -0,0 +1,131 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.gui.scene.text;
+
+import blue.lapis.nocturne.util.MemberType;
+
+/**
+ * Represents a run of decompiled code along with how it is to be displayed.
+ *
+ * <p>Spans are plain data; the nodes displaying them (including any
+ * {@link SelectableMember}s) are only created once the line containing them
+ * becomes visible.</p>
+ */
+public final class CodeSpan {
+
+    private final String text;
+    private final String styleClass;
+    private final MemberType memberType;
+    private final String descriptor;
+    private final String parentClass;
+
+    private CodeSpan(String text, String styleClass, MemberType memberType, String descriptor, String parentClass) {
+        this.text = text;
+        this.styleClass = styleClass;
+        this.memberType = memberType;
+        this.descriptor = descriptor;
+        this.parentClass = parentClass;
+    }
+
+    /**
+     * Creates a span of unstyled code.
+     *
+     * @param text The code
+     * @return The new span
+     */
+    public static CodeSpan plain(String text) {
+        return new CodeSpan(text, null, null, null, null);
+    }
+
+    /**
+     * Creates a span of syntax-highlighted code.
+     *
+     * @param text The code
+     * @param styleClass The style class of the syntax element
+     * @return The new span
+     */
+    public static CodeSpan styled(String text, String styleClass) {
+        return new CodeSpan(text, styleClass, null, null, null);
+    }
+
+    /**
+     * Creates a span referring to a class or member.
+     *
+     * @param type The type of the member
+     * @param name The obfuscated name of the member (fully qualified for
+     *     classes)
+     * @param descriptor The obfuscated descriptor of the member, or
+     *     {@code null} for classes
+     * @param parentClass The obfuscated name of the class declaring the
+     *     member, or {@code null} for classes
+     * @return The new span
+     */
+    public static CodeSpan member(MemberType type, String name, String descriptor, String parentClass) {
+        return new CodeSpan(name, null, type, descriptor, parentClass);
+    }
+
+    /**
+     * Returns the code of this span. For member spans this is the obfuscated
+     * name of the member (fully qualified for classes).
+     *
+     * @return The code of this span
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the syntax style class of this span.
+     *
+     * @return The style class, or {@code null} if this span is not
+     *     highlighted
+     */
+    public String getStyleClass() {
+        return styleClass;
+    }
+
+    /**
+     * Returns whether this span refers to a class or member.
+     *
+     * @return Whether this span refers to a class or member
+     */
+    public boolean isMember() {
+        return memberType != null;
+    }
+
+    public MemberType getMemberType() {
+        return memberType;
+    }
+
+    public String getDescriptor() {
+        return descriptor;
+    }
+
+    public String getParentClass() {
+        return parentClass;
+    }
+
+}
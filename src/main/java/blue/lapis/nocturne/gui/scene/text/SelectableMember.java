@@ -28,7 +28,6 @@ package blue.lapis.nocturne.gui.scene.text;
 import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_CHAR;
 import static blue.lapis.nocturne.util.Constants.DOT_PATTERN;
 import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
-import static blue.lapis.nocturne.util.Constants.Processing.CLASS_PREFIX;
 
 import blue.lapis.nocturne.Main;
 import blue.lapis.nocturne.gui.MainController;
@@ -55,14 +54,10 @@ import javafx.scene.control.TextInputDialog;
 import javafx.scene.input.MouseButton;
 import javafx.scene.text.Text;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.stream.Collectors;
 
 /**
@@ -70,8 +65,6 @@ import java.util.stream.Collectors;
  */
 public class SelectableMember extends Text {
 
-    public static final Map<MemberKey, List<SelectableMember>> MEMBERS = new HashMap<>();
-
     private final CodeTab codeTab;
     private final MemberType type;
 
@@ -82,6 +75,8 @@ public class SelectableMember extends Text {
     private final MethodDescriptor desc;
     private final IndexedMethod.Signature sig;
 
+    private final MemberKey key;
+
     private String fullName = null; // only used for classes
 
     public SelectableMember(CodeTab codeTab, MemberType type, String name) {
@@ -234,17 +229,22 @@ public class SelectableMember extends Text {
                 throw new AssertionError();
         }
         //TODO: we're ignoring field descriptors for now since SRG doesn't support them
-        MemberKey key = new MemberKey(type, qualName, type == MemberType.METHOD ? descriptor : null);
-        if (!MEMBERS.containsKey(key)) {
-            MEMBERS.put(key, new ArrayList<>());
-        }
-        MEMBERS.get(key).add(this);
+        key = new MemberKey(type, qualName, type == MemberType.METHOD ? descriptor : null);
 
         updateText();
 
         setDeobfuscated(!getName().equals(getText()));
     }
 
+    /**
+     * Returns the key identifying the member displayed by this node.
+     *
+     * @return The key of this member
+     */
+    public MemberKey getKey() {
+        return key;
+    }
+
     private boolean checkClassDupe(String newName) {
         if (Main.getLoadedJar().getCurrentNames().containsValue(newName)) {
             showDupeAlert(false);
@@ -323,7 +323,7 @@ public class SelectableMember extends Text {
                 if (fullName.contains(INNER_CLASS_SEPARATOR_CHAR + "")) {
                     mapping = fullName.substring(0, fullName.lastIndexOf(INNER_CLASS_SEPARATOR_CHAR) + 1) + mapping;
                 }
-                MappingsHelper.genClassMapping(Main.getMappingContext(), getName(), mapping, true);
+                MappingsHelper.genClassMapping(Main.getMappingContext(), getName(), mapping);
                 fullName = mapping;
                 break;
             }
@@ -419,27 +419,6 @@ public class SelectableMember extends Text {
         setAndProcessText(deobf);
     }
 
-    public static SelectableMember fromMatcher(CodeTab codeTab, Matcher matcher) {
-        MemberType type = matcher.group().startsWith(CLASS_PREFIX)
-                ? MemberType.CLASS
-                : MemberType.fromString(matcher.group(1));
-
-        if (type == MemberType.CLASS) {
-            return new SelectableMember(codeTab, type, matcher.group(1));
-        } else {
-            String qualName = matcher.group(2);
-            String descriptor = matcher.group(3);
-            int offset = qualName.lastIndexOf(CLASS_PATH_SEPARATOR_CHAR);
-            String simpleName = qualName.substring(offset + 1);
-            String parentClass = qualName.substring(0, offset);
-            try {
-                return new SelectableMember(codeTab, type, simpleName, descriptor, parentClass);
-            } catch (IllegalArgumentException ex) {
-                return null;
-            }
-        }
-    }
-
     public void setAndProcessText(String text) {
         setText(getType() == MemberType.CLASS ? StringHelper.unqualify(text) : text);
     }
@@ -0,0 +1,193 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.jar.io;
+
+import static blue.lapis.nocturne.util.Constants.CLASS_FILE_NAME_TAIL;
+import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_CHAR;
+import static com.google.common.base.Preconditions.checkState;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.processor.transform.ClassTransformer;
+import blue.lapis.nocturne.processor.transform.DeobfuscatingNameMapper;
+import blue.lapis.nocturne.processor.transform.NameMapper;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Static utility class for exporting the loaded JAR with the current mappings
+ * applied to its bytecode.
+ */
+public final class JarExporter {
+
+    private static final String META_INF_DIRECTORY = "META-INF/";
+    private static final ImmutableList<String> SIGNATURE_FILE_TAILS = ImmutableList.of(".SF", ".RSA", ".DSA", ".EC");
+
+    // bounds the number of remapped classes held in memory while waiting to be written
+    private static final int MAX_IN_FLIGHT = Runtime.getRuntime().availableProcessors() * 2;
+
+    private JarExporter() {
+    }
+
+    /**
+     * Writes a copy of the loaded JAR to the given file, with all classes,
+     * fields, methods, descriptors and generic signatures renamed according
+     * to the current {@link blue.lapis.nocturne.mapping.MappingContext}.
+     *
+     * <p>Classes are transformed concurrently, but written in order as they
+     * become available. If the loaded JAR was read from a file, its resources
+     * are copied as well, with the exception of signature files, which would
+     * no longer match. The main class given by the manifest is remapped.</p>
+     *
+     * @param target The path of the JAR file to write to
+     * @param progress A callback accepting the number of classes written so
+     *     far and the total number of classes, invoked after each class
+     * @throws IOException If an exception occurs while transforming or
+     *     writing the classes, or if the calling thread is interrupted
+     */
+    public static void export(Path target, BiConsumer<Integer, Integer> progress) throws IOException {
+        checkState(Main.getLoadedJar() != null, "JAR is not loaded");
+        ClassSet classSet = Main.getLoadedJar();
+        NameMapper mapper = new DeobfuscatingNameMapper(Main.getMappingContext());
+        List<JarClassEntry> classes = classSet.getClasses().stream()
+                .sorted(Comparator.comparing(JarClassEntry::getName))
+                .collect(Collectors.toList());
+
+        Deque<CompletableFuture<byte[]>> inFlight = new ArrayDeque<>();
+        try (ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(target)))) {
+            if (classSet.getSourceZip().isPresent()) {
+                copyResources(classSet.getSourceZip().get(), zos, mapper);
+            }
+
+            int next = 0;
+            for (int i = 0; i < classes.size(); i++) {
+                while (next < classes.size() && inFlight.size() < MAX_IN_FLIGHT) {
+                    JarClassEntry clazz = classes.get(next++);
+                    inFlight.add(CompletableFuture.supplyAsync(() -> transform(clazz, mapper)));
+                }
+
+                JarClassEntry clazz = classes.get(i);
+                byte[] content;
+                try {
+                    content = inFlight.remove().join();
+                } catch (CompletionException ex) {
+                    throw new IOException("Failed to remap class " + clazz.getName(), ex.getCause());
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedIOException("JAR export was interrupted");
+                }
+
+                zos.putNextEntry(new ZipEntry(mapper.mapClass(clazz.getName()) + CLASS_FILE_NAME_TAIL));
+                zos.write(content);
+                zos.closeEntry();
+                progress.accept(i + 1, classes.size());
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(false));
+        }
+    }
+
+    private static byte[] transform(JarClassEntry clazz, NameMapper mapper) {
+        try {
+            return new ClassTransformer(clazz.getName(), clazz.getContent(), mapper).process();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Copies all non-class entries of the given ZIP file to the given stream,
+     * starting with the manifest.
+     *
+     * @param zip The ZIP file to copy from
+     * @param zos The stream to copy to
+     * @param mapper The {@link NameMapper} to remap the main class with
+     * @throws IOException If an exception occurs while copying
+     */
+    private static void copyResources(ZipFile zip, ZipOutputStream zos, NameMapper mapper) throws IOException {
+        ZipEntry manifestEntry = zip.getEntry(JarFile.MANIFEST_NAME);
+        if (manifestEntry != null) {
+            Manifest manifest;
+            try (InputStream is = zip.getInputStream(manifestEntry)) {
+                manifest = new Manifest(is);
+            }
+            manifest.getEntries().clear(); // per-entry digests no longer match
+            String mainClass = manifest.getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+            if (mainClass != null) {
+                manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS,
+                        mapper.mapClass(mainClass.replace('.', CLASS_PATH_SEPARATOR_CHAR))
+                                .replace(CLASS_PATH_SEPARATOR_CHAR, '.'));
+            }
+            zos.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+            manifest.write(zos);
+            zos.closeEntry();
+        }
+
+        for (ZipEntry entry : Collections.list(zip.entries())) {
+            String name = entry.getName();
+            if (entry.isDirectory() || name.endsWith(CLASS_FILE_NAME_TAIL) || name.equals(JarFile.MANIFEST_NAME)
+                    || isSignatureFile(name)) {
+                continue;
+            }
+            zos.putNextEntry(new ZipEntry(name));
+            try (InputStream is = zip.getInputStream(entry)) {
+                ByteStreams.copy(is, zos);
+            }
+            zos.closeEntry();
+        }
+    }
+
+    private static boolean isSignatureFile(String name) {
+        return name.startsWith(META_INF_DIRECTORY) && name.indexOf('/', META_INF_DIRECTORY.length()) == -1
+                && SIGNATURE_FILE_TAILS.stream().anyMatch(name::endsWith);
+    }
+
+}
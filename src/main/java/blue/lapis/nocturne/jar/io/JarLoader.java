@@ -36,93 +36,122 @@ import blue.lapis.nocturne.processor.index.model.IndexedClass;
 import blue.lapis.nocturne.util.Constants;
 
 import com.google.common.collect.Sets;
-import javafx.scene.control.Alert;
+import com.google.common.io.ByteStreams;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 
 /**
  * Utility class for loading JAR files.
  */
 public class JarLoader {
 
+    /**
+     * Loads a JAR from the given {@link File} for use with Nocturne.
+     *
+     * <p>Class entries are read through random access into the file rather
+     * than sequentially, and are only inflated on demand (in parallel during
+     * indexing). The file is held open by the returned {@link ClassSet} until
+     * it is closed.</p>
+     *
+     * @param jarFile The JAR {@link File} to load
+     * @return A {@link ClassSet} representing the JAR file, or {@code null}
+     *     if it contains no classes
+     * @throws ZipException If the provided {@link File} is not a valid JAR
+     * @throws IOException If an exception occurs while loading the provided
+     *     {@link File}
+     */
+    public static ClassSet loadJar(File jarFile) throws IOException {
+        IndexedClass.INDEXED_CLASSES.clear();
+
+        ZipFile zip = new ZipFile(jarFile);
+
+        Set<JarClassEntry> classes = new HashSet<>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            if (entry.isDirectory() || !entry.getName().endsWith(Constants.CLASS_FILE_NAME_TAIL)) {
+                continue; // not a class so we can ignore it
+            }
+            classes.add(createEntry(new JarClassEntry(getClassName(entry), zip, entry)));
+        }
+
+        if (classes.size() == 0) {
+            zip.close();
+            Main.getLogger().warning("JAR " + jarFile.getName() + " contains no classes");
+            return null;
+        }
+
+        return initialize(new ClassSet(jarFile.getAbsolutePath(), classes, zip));
+    }
+
     /**
      * Loads a JAR from the given {@link InputStream} for use with Nocturne.
      *
      * @param jarFile The {@link InputStream} containing the JAR file to load
-     * @return A {@link ClassSet} representing the JAR file
+     * @return A {@link ClassSet} representing the JAR file, or {@code null}
+     *     if it contains no classes
+     * @throws ZipException If the provided stream is not a valid JAR
      * @throws IOException If an exception occurs while loading the provided
      *     {@link File}
      */
     public static ClassSet loadJar(String name, InputStream jarFile) throws IOException {
         IndexedClass.INDEXED_CLASSES.clear();
 
-        JarInputStream jar;
-        try {
-            jar = new JarInputStream(jarFile);
-        } catch (ZipException ex) {
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setHeaderText(null);
-            alert.setContentText(Main.getResourceBundle().getString("jarload.invalid"));
-            alert.showAndWait();
-            return null;
-        }
+        JarInputStream jar = new JarInputStream(jarFile);
 
         Set<JarClassEntry> classes = new HashSet<>();
 
         JarEntry entry;
         while ((entry = jar.getNextJarEntry()) != null) {
-            if (!entry.getName().endsWith(".class")) {
+            if (!entry.getName().endsWith(Constants.CLASS_FILE_NAME_TAIL)) {
                 continue; // not a class so we can ignore it
             }
 
-            try {
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                int b;
-                while ((b = jar.read()) != -1) {
-                    baos.write(b);
-                }
-                byte[] bytes = baos.toByteArray();
-
-                String className = entry.getName();
-                if (className.endsWith(Constants.CLASS_FILE_NAME_TAIL)) {
-                    className = className.substring(0, className.length() - Constants.CLASS_FILE_NAME_TAIL.length());
-                }
-
-                JarClassEntry classEntry = new JarClassEntry(className, bytes);
-
-                //TODO: detect whether class is already deobfuscated (e.g. this is usually the case for entry classes)
-                ClassMapping mapping = Main.getMappingContext().getMappings().get(className);
-                if (mapping != null && !mapping.getObfuscatedName().equals(mapping.getDeobfuscatedName())) {
-                    classEntry.setDeobfuscated(true);
-                }
-                classes.add(classEntry);
-            } catch (IOException ex) {
-                throw new RuntimeException(ex);
-            }
+            classes.add(createEntry(new JarClassEntry(getClassName(entry), ByteStreams.toByteArray(jar))));
         }
 
         if (classes.size() == 0) {
-            Alert alert = new Alert(Alert.AlertType.WARNING);
-            alert.setHeaderText(null);
-            alert.setContentText(Main.getResourceBundle().getString("jarload.empty"));
-            alert.showAndWait();
+            jar.close();
+            Main.getLogger().warning("JAR " + name + " contains no classes");
             return null;
         }
 
         jar.close(); // release the resource
-        ClassSet cs = new ClassSet(name, classes);
+        return initialize(new ClassSet(name, classes));
+    }
+
+    private static String getClassName(ZipEntry entry) {
+        String className = entry.getName();
+        return className.substring(0, className.length() - Constants.CLASS_FILE_NAME_TAIL.length());
+    }
+
+    private static JarClassEntry createEntry(JarClassEntry classEntry) {
+        //TODO: detect whether class is already deobfuscated (e.g. this is usually the case for entry classes)
+        ClassMapping mapping = Main.getMappingContext().getMappings().get(classEntry.getName());
+        if (mapping != null && !mapping.getObfuscatedName().equals(mapping.getDeobfuscatedName())) {
+            classEntry.setDeobfuscated(true);
+        }
+        return classEntry;
+    }
+
+    private static ClassSet initialize(ClassSet cs) {
         Main.setLoadedJar(cs);
-        cs.getClasses().stream().forEach(JarClassEntry::index);
+
+        // indexing is independent per class, so it's spread across the common fork-join pool; the terminal forEach
+        // doubles as the barrier before the (order-sensitive) hierarchy build
+        // classes are only transformed once they're requested (see ClassSet#getProcessedContent)
+        cs.getClasses().parallelStream().forEach(JarClassEntry::index);
         new ClassHierarchyBuilder(Sets.newHashSet(INDEXED_CLASSES.values())).buildHierarchies();
-        cs.getClasses().stream().forEach(JarClassEntry::process);
         INDEXED_CLASSES.values().forEach(IndexedClass::clearPool);
         return cs;
     }
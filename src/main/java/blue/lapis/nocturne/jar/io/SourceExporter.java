@@ -0,0 +1,144 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.jar.io;
+
+import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
+import static com.google.common.base.Preconditions.checkState;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.decompile.SourceRemapper;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Static utility class for exporting the decompiled source of the loaded JAR.
+ */
+public final class SourceExporter {
+
+    public static final String ZIP_FILE_TAIL = ".zip";
+
+    private static final String SOURCE_FILE_TAIL = ".java";
+
+    // bounds the number of decompiled sources held in memory while waiting to be written
+    private static final int MAX_IN_FLIGHT = Runtime.getRuntime().availableProcessors() * 2;
+
+    private SourceExporter() {
+    }
+
+    /**
+     * Decompiles every top-level class of the loaded JAR with the current
+     * mappings applied, and writes the sources to the given target.
+     *
+     * <p>If the name of the target ends with {@link #ZIP_FILE_TAIL}, the
+     * sources are written to a new ZIP file at that path. Otherwise, they are
+     * written to a directory tree rooted at it.</p>
+     *
+     * <p>Classes are decompiled concurrently, but their sources are written
+     * in order as they become available. Classes which fail to decompile are
+     * logged and skipped. The decompile cache is bypassed, so that a bulk
+     * export neither persists every source nor evicts those of open tabs.</p>
+     *
+     * @param target The path of the ZIP file or directory to write to
+     * @param progress A callback accepting the number of classes processed so
+     *     far and the total number of classes, invoked after each class
+     * @return The number of classes which failed to decompile
+     * @throws IOException If an exception occurs while writing the sources, or
+     *     if the calling thread is interrupted
+     */
+    public static int export(Path target, BiConsumer<Integer, Integer> progress) throws IOException {
+        checkState(Main.getLoadedJar() != null, "JAR is not loaded");
+        List<JarClassEntry> classes = Main.getLoadedJar().getClasses().stream()
+                .filter(jce -> jce.getName().indexOf(INNER_CLASS_SEPARATOR_CHAR) == -1)
+                .sorted(Comparator.comparing(JarClassEntry::getName))
+                .collect(Collectors.toList());
+
+        boolean zip = target.getFileName().toString().endsWith(ZIP_FILE_TAIL);
+        if (!zip) {
+            Files.createDirectories(target);
+        }
+
+        int failures = 0;
+        Deque<CompletableFuture<String>> inFlight = new ArrayDeque<>();
+        try (ZipOutputStream zos = zip ? new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(target)))
+                : null) {
+            int next = 0;
+            for (int i = 0; i < classes.size(); i++) {
+                while (next < classes.size() && inFlight.size() < MAX_IN_FLIGHT) {
+                    inFlight.add(classes.get(next++).decompileAsync(false));
+                }
+
+                JarClassEntry clazz = classes.get(i);
+                String source = null;
+                try {
+                    source = inFlight.remove().join();
+                } catch (CompletionException ex) {
+                    Main.getLogger().log(Level.WARNING, "Failed to decompile class " + clazz.getName(), ex.getCause());
+                    failures++;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedIOException("Source export was interrupted");
+                }
+
+                if (source != null) {
+                    String deobfName = SourceRemapper.getDeobfuscatedName(clazz.getName(), Main.getMappingContext());
+                    byte[] content = SourceRemapper.remap(source, clazz.getName(), Main.getMappingContext())
+                            .getBytes(StandardCharsets.UTF_8);
+                    if (zos != null) {
+                        zos.putNextEntry(new ZipEntry(deobfName + SOURCE_FILE_TAIL));
+                        zos.write(content);
+                        zos.closeEntry();
+                    } else {
+                        Path file = target.resolve(deobfName + SOURCE_FILE_TAIL);
+                        Files.createDirectories(file.getParent());
+                        Files.write(file, content);
+                    }
+                }
+                progress.accept(i + 1, classes.size());
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(false));
+        }
+        return failures;
+    }
+
+}
@@ -25,29 +25,59 @@
 
 package blue.lapis.nocturne.jar.model;
 
+import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
+import static blue.lapis.nocturne.util.Constants.PROCESSED_CLASS_CACHE_WEIGHT;
+import static com.google.common.base.Preconditions.checkArgument;
+
 import blue.lapis.nocturne.jar.model.hierarchy.Hierarchy;
 import blue.lapis.nocturne.jar.model.hierarchy.HierarchyNode;
+import blue.lapis.nocturne.processor.transform.ClassTransformer;
 import blue.lapis.nocturne.util.Constants;
 
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
+import java.util.zip.ZipFile;
 
 /**
  * Represents a set of {@link JarClassEntry JarClassEntries} loaded from a JAR
  * file.
  */
-public class ClassSet {
+public class ClassSet implements Closeable {
 
     private final String name;
+    private final Closeable source;
     private final Map<String, JarClassEntry> classMap = new HashMap<>();
     private final BiMap<String, String> names = HashBiMap.create();
+    private final SymbolTable symbols = new SymbolTable();
+    private final ImmutableListMultimap<String, String> nestedClasses;
+
+    // processed bytes only depend on the original content and on which classes are present in the set, so entries
+    // never go stale for the lifetime of the set
+    private final LoadingCache<String, byte[]> processedContent = CacheBuilder.newBuilder()
+            .maximumWeight(PROCESSED_CLASS_CACHE_WEIGHT)
+            .weigher((String name, byte[] content) -> content.length)
+            .build(new CacheLoader<String, byte[]>() {
+                @Override
+                public byte[] load(String name) throws IOException {
+                    return new ClassTransformer(name, classMap.get(name).getContent()).process();
+                }
+            });
 
     /**
      * Constructs a new {@link ClassSet} from the given {@link JarClassEntry}
@@ -57,11 +87,45 @@ public class ClassSet {
      *     new {@link ClassSet} with
      */
     public ClassSet(String name, Set<JarClassEntry> classes) {
+        this(name, classes, null);
+    }
+
+    /**
+     * Constructs a new {@link ClassSet} from the given {@link JarClassEntry}
+     * {@link Set}, backed by the given source.
+     *
+     * @param classes The {@link JarClassEntry JarClassEntries} to populate the
+     *     new {@link ClassSet} with
+     * @param source The resource backing the given entries, to be released
+     *     when this {@link ClassSet} is closed, or {@code null} if none
+     */
+    public ClassSet(String name, Set<JarClassEntry> classes, Closeable source) {
         this.name = name;
+        this.source = source;
         classes.forEach(cl -> {
+            symbols.intern(cl.getName()); // make the entry's own name the canonical instance
             classMap.put(cl.getName(), cl);
             getCurrentNames().put(cl.getName(), cl.getName());
         });
+        this.nestedClasses = indexNestedClasses(classMap.keySet());
+    }
+
+    /**
+     * Maps each class name to the names of all classes nested within it,
+     * directly or indirectly, in lexicographic order.
+     *
+     * @param names The FQ names of the classes to index
+     * @return The nested class index
+     */
+    private static ImmutableListMultimap<String, String> indexNestedClasses(Set<String> names) {
+        ImmutableListMultimap.Builder<String, String> builder = ImmutableListMultimap.builder();
+        names.stream().sorted().forEach(name -> {
+            for (int i = name.indexOf(INNER_CLASS_SEPARATOR_CHAR); i > 0;
+                 i = name.indexOf(INNER_CLASS_SEPARATOR_CHAR, i + 1)) {
+                builder.put(name.substring(0, i), name);
+            }
+        });
+        return builder.build();
     }
 
     /**
@@ -73,6 +137,27 @@ public class ClassSet {
         return name;
     }
 
+    /**
+     * Returns the ZIP file backing this {@link ClassSet}, if it was loaded
+     * from one.
+     *
+     * @return The backing ZIP file, or {@link Optional#empty()} if this
+     *     {@link ClassSet} was not loaded from a file
+     */
+    public Optional<ZipFile> getSourceZip() {
+        return source instanceof ZipFile ? Optional.of((ZipFile) source) : Optional.empty();
+    }
+
+    /**
+     * Returns the {@link SymbolTable} shared by the classes of this
+     * {@link ClassSet}.
+     *
+     * @return The {@link SymbolTable} of this {@link ClassSet}
+     */
+    public SymbolTable getSymbolTable() {
+        return symbols;
+    }
+
     /**
      * Returns an {@link ImmutableSet} of all classes contained by this
      * this {@link ClassSet}.
@@ -118,6 +203,35 @@ public class ClassSet {
         return classMap.containsKey(name) ? Optional.of(classMap.get(name)) : Optional.empty();
     }
 
+    /**
+     * Returns the FQ names of all classes in this {@link ClassSet} which are
+     * nested within the class with the given FQ name, directly or indirectly.
+     *
+     * @param name The FQ name of the enclosing class
+     * @return The FQ names of the nested classes, in lexicographic order
+     */
+    public ImmutableList<String> getNestedClasses(String name) {
+        return nestedClasses.get(name);
+    }
+
+    /**
+     * Returns the processed bytecode of the class with the given FQ name,
+     * transforming it first if it is not currently cached.
+     *
+     * @param name The FQ name of the class
+     * @return The processed bytecode of the class
+     * @throws IOException If an exception occurs while processing the class
+     */
+    public byte[] getProcessedContent(String name) throws IOException {
+        checkArgument(classMap.containsKey(name), "Class " + name + " is not present in this set");
+        try {
+            return processedContent.get(name);
+        } catch (ExecutionException ex) {
+            Throwables.propagateIfInstanceOf(ex.getCause(), IOException.class);
+            throw Throwables.propagate(ex.getCause());
+        }
+    }
+
     /**
      * Returns a {@link HierarchyNode} representing the structure of
      * obfuscated classes contained by this {@link ClassSet}.
@@ -159,4 +273,12 @@ public class ClassSet {
         return names;
     }
 
+    @Override
+    public void close() throws IOException {
+        processedContent.invalidateAll();
+        if (source != null) {
+            source.close();
+        }
+    }
+
 }
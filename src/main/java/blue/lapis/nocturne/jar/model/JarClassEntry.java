@@ -27,54 +27,57 @@ package blue.lapis.nocturne.jar.model;
 
 import static blue.lapis.nocturne.processor.index.model.IndexedClass.INDEXED_CLASSES;
 import static blue.lapis.nocturne.util.Constants.FF_OPTIONS;
-import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.decompile.DecompileCache;
 import blue.lapis.nocturne.decompile.NoopResultSaver;
 import blue.lapis.nocturne.decompile.SimpleBytecodeProvider;
 import blue.lapis.nocturne.decompile.SimpleFernflowerLogger;
 import blue.lapis.nocturne.processor.index.ClassIndexer;
 import blue.lapis.nocturne.processor.index.model.IndexedMethod;
-import blue.lapis.nocturne.processor.transform.ClassTransformer;
 import blue.lapis.nocturne.util.MemberType;
 import blue.lapis.nocturne.util.helper.StringHelper;
 
-import javafx.scene.control.Dialog;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.jetbrains.java.decompiler.main.Fernflower;
 import org.jetbrains.java.decompiler.struct.StructClass;
 import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * Represents an class entry within a JAR file.
  */
 public class JarClassEntry {
 
-    private static Dialog<Boolean> decompileDialog;
-
-    static {
-        if (!Main.getInstance().testingEnv) {
-            decompileDialog = new Dialog<>();
-            decompileDialog.setTitle(Main.getResourceBundle().getString("dialog.decompile.title"));
-            decompileDialog.setHeaderText(null);
-            decompileDialog.setContentText(Main.getResourceBundle().getString("dialog.decompile.content"));
-            decompileDialog.setResult(false);
-        } else {
-            decompileDialog = null;
-        }
-    }
+    // FernFlower keeps its context in a thread local, so independent classes can be decompiled concurrently
+    private static final ExecutorService DECOMPILE_EXECUTOR = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("Nocturne-Decompiler-%d").setDaemon(true).build()
+    );
 
     private final String name;
-    private byte[] content;
+    private final ZipFile source;
+    private final ZipEntry sourceEntry;
+    private final byte[] content;
     private boolean deobfuscated;
 
-    private final Map<String, String> classNames = new HashMap<>();
+    // populated by the indexers of this class's inner classes, which may run concurrently
+    private final Map<String, String> classNames = new ConcurrentHashMap<>();
     private final Map<String, String> fieldNames = new HashMap<>();
     private final Map<IndexedMethod.Signature, IndexedMethod.Signature> methodNames = new HashMap<>();
 
@@ -87,21 +90,29 @@ public class JarClassEntry {
      */
     public JarClassEntry(String name, byte[] content) {
         this.name = name;
-        this.content = new byte[content.length];
-        System.arraycopy(content, 0, this.content, 0, content.length);
+        this.source = null;
+        this.sourceEntry = null;
+        this.content = content;
     }
 
-    public void index() {
-        INDEXED_CLASSES.put(getName(), new ClassIndexer(this).index());
+    /**
+     * Constructs a new {@link JarClassEntry} with the given name, backed by the
+     * given entry of a {@link ZipFile}. The entry is only inflated when its
+     * content is requested, and is not retained afterwards.
+     *
+     * @param name The name of the {@link JarClassEntry}.
+     * @param source The {@link ZipFile} containing the class
+     * @param sourceEntry The {@link ZipEntry} of the class within the source
+     */
+    public JarClassEntry(String name, ZipFile source, ZipEntry sourceEntry) {
+        this.name = name;
+        this.source = source;
+        this.sourceEntry = sourceEntry;
+        this.content = null;
     }
 
-    public void process() {
-        try {
-            content = new ClassTransformer(getName(), getContent()).process();
-        } catch (IOException ex) {
-            Main.getLogger().severe("Failed to process class " + getName());
-            ex.printStackTrace();
-        }
+    public void index() {
+        INDEXED_CLASSES.put(getName(), new ClassIndexer(this).index());
     }
 
     /**
@@ -121,10 +132,20 @@ public class JarClassEntry {
     /**
      * Returns the raw byte content of this {@link JarClassEntry}.
      *
+     * <p>This is always the original, unprocessed bytecode of the class. See
+     * {@link ClassSet#getProcessedContent(String)} for the processed form.</p>
+     *
      * @return The raw byte content of this {@link JarClassEntry}.
      */
     public byte[] getContent() {
-        return content;
+        if (content != null) {
+            return content;
+        }
+        try {
+            return readSourceEntry();
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to read class " + getName() + " from JAR", ex);
+        }
     }
 
     /**
@@ -146,8 +167,82 @@ public class JarClassEntry {
         this.deobfuscated = deobfuscated;
     }
 
+    /**
+     * Decompiles this {@link JarClassEntry} along with its inner classes.
+     *
+     * <p>The result is served from the {@link DecompileCache} if the same
+     * processed bytecode has been decompiled before.</p>
+     *
+     * @return The decompiled source of this {@link JarClassEntry}
+     */
     public String decompile() {
-        showDecompileDialog();
+        return decompile(true);
+    }
+
+    /**
+     * Decompiles this {@link JarClassEntry} along with its inner classes.
+     *
+     * @param cached Whether to serve the result from, and store it in, the
+     *     {@link DecompileCache}
+     * @return The decompiled source of this {@link JarClassEntry}
+     */
+    public String decompile(boolean cached) {
+        ClassSet jar = Main.getLoadedJar();
+        List<String> classes = new ArrayList<>();
+        classes.add(getName());
+        classes.addAll(jar.getNestedClasses(getName()));
+        List<byte[]> content = new ArrayList<>(classes.size());
+        try {
+            for (String clazz : classes) {
+                content.add(jar.getProcessedContent(clazz));
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        if (!cached) {
+            return doDecompile(classes, content);
+        }
+        return DecompileCache.getInstance().get(content, () -> doDecompile(classes, content));
+    }
+
+    /**
+     * Decompiles this {@link JarClassEntry} on a background thread.
+     *
+     * <p>Cancelling the returned future before decompilation has started
+     * prevents it from running at all. A decompilation which is already
+     * running is allowed to finish so that its result can still be cached,
+     * but is not delivered.</p>
+     *
+     * @return A future completed with the decompiled source of this
+     *     {@link JarClassEntry}
+     * @see #decompile()
+     */
+    public CompletableFuture<String> decompileAsync() {
+        return decompileAsync(true);
+    }
+
+    /**
+     * Decompiles this {@link JarClassEntry} on a background thread.
+     *
+     * @param cached Whether to serve the result from, and store it in, the
+     *     {@link DecompileCache}
+     * @return A future completed with the decompiled source of this
+     *     {@link JarClassEntry}
+     * @see #decompileAsync()
+     */
+    public CompletableFuture<String> decompileAsync(boolean cached) {
+        return CompletableFuture.supplyAsync(() -> decompile(cached), DECOMPILE_EXECUTOR);
+    }
+
+    /**
+     * Decompiles the first of the given classes, providing the rest to the
+     * decompiler alongside it.
+     *
+     * @param classes The FQ names of this class and its nested classes
+     * @param content The processed bytecode of each of the given classes
+     * @return The decompiled source of this {@link JarClassEntry}
+     */
+    private String doDecompile(List<String> classes, List<byte[]> content) {
         Fernflower ff = new Fernflower(
                 SimpleBytecodeProvider.getInstance(),
                 NoopResultSaver.getInstance(),
@@ -156,27 +251,15 @@ public class JarClassEntry {
         );
         try {
             LazyLoader ll = new LazyLoader(SimpleBytecodeProvider.getInstance());
-            String procName = StringHelper.getProcessedName(getName(), null, MemberType.CLASS);
-            ll.addClassLink(procName, new LazyLoader.Link(LazyLoader.Link.CLASS, null, procName));
-            StructClass sc = new StructClass(
-                    SimpleBytecodeProvider.getInstance().getBytecode(null, procName),
-                    true,
-                    ll
-            );
-            ff.getStructContext().getClasses().put(procName, sc);
-
-            // provide inner classes
-            for (JarClassEntry jce : Main.getLoadedJar().getClasses().stream()
-                    .filter(entry -> entry.getName().startsWith(getName() + INNER_CLASS_SEPARATOR_CHAR))
-                    .collect(Collectors.toList())) {
-                String innerProcName = StringHelper.getProcessedName(jce.getName(), null, MemberType.CLASS);
-                ll.addClassLink(innerProcName, new LazyLoader.Link(LazyLoader.Link.CLASS, null, innerProcName));
-                StructClass innerSc = new StructClass(
-                        SimpleBytecodeProvider.getInstance().getBytecode(null, innerProcName),
-                        true,
-                        ll
-                );
-                ff.getStructContext().getClasses().put(innerProcName, innerSc);
+            StructClass sc = null;
+            for (int i = 0; i < classes.size(); i++) {
+                String procName = StringHelper.getProcessedName(classes.get(i), null, MemberType.CLASS);
+                ll.addClassLink(procName, new LazyLoader.Link(LazyLoader.Link.CLASS, null, procName));
+                StructClass structClass = new StructClass(content.get(i), true, ll);
+                ff.getStructContext().getClasses().put(procName, structClass);
+                if (sc == null) {
+                    sc = structClass;
+                }
             }
 
             ff.decompileContext();
@@ -184,7 +267,6 @@ public class JarClassEntry {
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         } finally {
-            closeDecompileDialog();
             ff.clearContext();
         }
     }
@@ -211,12 +293,16 @@ public class JarClassEntry {
         return Objects.hash(getName());
     }
 
-    private static void showDecompileDialog() {
-        decompileDialog.show();
-    }
-
-    private static void closeDecompileDialog() {
-        decompileDialog.close();
+    private byte[] readSourceEntry() throws IOException {
+        try (InputStream is = source.getInputStream(sourceEntry)) {
+            long size = sourceEntry.getSize();
+            if (size < 0) {
+                return ByteStreams.toByteArray(is);
+            }
+            byte[] bytes = new byte[(int) size];
+            ByteStreams.readFully(is, bytes);
+            return bytes;
+        }
     }
 
 }
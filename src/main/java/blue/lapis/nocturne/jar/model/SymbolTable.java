@@ -0,0 +1,70 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.jar.model;
+
+import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns the class names, member names and descriptors of a single
+ * {@link ClassSet}, such that each distinct symbol is backed by one shared
+ * instance across the index and the mapping model.
+ *
+ * <p>This is safe for concurrent use.</p>
+ */
+public class SymbolTable {
+
+    private final Interner<String> names = Interners.newStrongInterner();
+    private final Map<String, MethodDescriptor> methodDescriptors = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the canonical instance of the given name.
+     *
+     * @param name The name to intern
+     * @return The canonical instance of the name
+     */
+    public String intern(String name) {
+        return names.intern(name);
+    }
+
+    /**
+     * Returns the canonical {@link MethodDescriptor} parsed from the given
+     * string, parsing it only the first time it is encountered.
+     *
+     * @param descriptor The descriptor string
+     * @return The canonical {@link MethodDescriptor}
+     */
+    public MethodDescriptor getMethodDescriptor(String descriptor) {
+        MethodDescriptor md = methodDescriptors.get(descriptor);
+        return md != null ? md : methodDescriptors.computeIfAbsent(intern(descriptor), MethodDescriptor::fromString);
+    }
+
+}
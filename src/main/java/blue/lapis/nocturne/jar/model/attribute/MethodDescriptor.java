@@ -77,6 +77,7 @@ public class MethodDescriptor {
         Preconditions.checkArgument(descriptor.charAt(0) == '(', "Not a valid method descriptor: " + descriptor);
 
         int returnTypeIndex = descriptor.indexOf(')');
+        Preconditions.checkArgument(returnTypeIndex != -1, "Not a valid method descriptor: " + descriptor);
 
         Matcher matcher = TYPE_SEQUENCE_REGEX.matcher(descriptor.substring(1, returnTypeIndex));
         List<Type> paramTypeList = new ArrayList<>();
@@ -140,6 +141,9 @@ public class MethodDescriptor {
 
     @Override
     public boolean equals(Object otherObj) {
+        if (otherObj == this) {
+            return true;
+        }
         if (!(otherObj instanceof MethodDescriptor)) {
             return false;
         }
@@ -0,0 +1,120 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.mapping;
+
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.mapping.model.Mapping;
+
+/**
+ * Describes a single change to the mappings of a {@link MappingContext}.
+ */
+public final class MappingChangeEvent {
+
+    private final Type type;
+    private final Mapping mapping;
+    private final String previousName;
+
+    private MappingChangeEvent(Type type, Mapping mapping, String previousName) {
+        this.type = type;
+        this.mapping = mapping;
+        this.previousName = previousName;
+    }
+
+    /**
+     * Creates an event signifying that the deobfuscated name of the given
+     * {@link Mapping} has been set.
+     *
+     * @param mapping The renamed {@link Mapping}
+     * @param previousName The deobfuscated name of the {@link Mapping} before
+     *     the change
+     * @return The new event
+     */
+    public static MappingChangeEvent renamed(Mapping mapping, String previousName) {
+        return new MappingChangeEvent(mapping instanceof ClassMapping ? Type.CLASS_RENAMED : Type.MEMBER_RENAMED,
+                mapping, previousName);
+    }
+
+    static MappingChangeEvent cleared() {
+        return new MappingChangeEvent(Type.CLEARED, null, null);
+    }
+
+    static MappingChangeEvent merged() {
+        return new MappingChangeEvent(Type.MERGED, null, null);
+    }
+
+    /**
+     * Returns the type of this event.
+     *
+     * @return The type of this event
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the {@link Mapping} affected by this event.
+     *
+     * @return The affected {@link Mapping}, or {@code null} if this event
+     *     affects the context as a whole
+     */
+    public Mapping getMapping() {
+        return mapping;
+    }
+
+    /**
+     * Returns the deobfuscated name of the affected {@link Mapping} before the
+     * change.
+     *
+     * @return The previous deobfuscated name, or {@code null} if this event
+     *     affects the context as a whole
+     */
+    public String getPreviousName() {
+        return previousName;
+    }
+
+    public enum Type {
+
+        /**
+         * A class mapping was added or its deobfuscated name was set.
+         */
+        CLASS_RENAMED,
+        /**
+         * A field or method mapping was added or its deobfuscated name was
+         * set.
+         */
+        MEMBER_RENAMED,
+        /**
+         * All mappings were removed from the context.
+         */
+        CLEARED,
+        /**
+         * The mappings of another context were merged into the context.
+         */
+        MERGED
+
+    }
+
+}
@@ -30,10 +30,15 @@ import blue.lapis.nocturne.gui.MainController;
 import blue.lapis.nocturne.mapping.model.ClassMapping;
 import blue.lapis.nocturne.mapping.model.TopLevelClassMapping;
 
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableList;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Represents a set of {@link ClassMapping}s.
@@ -41,29 +46,33 @@ import java.util.Map;
 public class MappingContext {
 
     private final Map<String, TopLevelClassMapping> mappings = new HashMap<>();
+    private final Map<String, TopLevelClassMapping> mappingsView = Collections.unmodifiableMap(mappings);
+
+    private final List<Consumer<List<MappingChangeEvent>>> listeners = new CopyOnWriteArrayList<>();
+    private final List<MappingChangeEvent> pendingEvents = new ArrayList<>();
+    private int batchDepth;
 
     private boolean dirty;
 
     /**
-     * Returns an {@link ImmutableMap} of all {@link TopLevelClassMapping}s contained by
-     * this {@link MappingContext}.
+     * Returns an unmodifiable live view of all {@link TopLevelClassMapping}s
+     * contained by this {@link MappingContext}.
      *
-     * @return An {@link ImmutableMap} of all {@link TopLevelClassMapping}s contained by
-     *     this {@link MappingContext}
+     * @return A view of all {@link TopLevelClassMapping}s contained by this
+     *     {@link MappingContext}
      */
-    public ImmutableMap<String, TopLevelClassMapping> getMappings() {
-        return ImmutableMap.copyOf(mappings);
+    public Map<String, TopLevelClassMapping> getMappings() {
+        return mappingsView;
     }
 
     /**
      * Adds the given {@link TopLevelClassMapping} to this {@link MappingContext}.
      *
      * @param mapping The {@link TopLevelClassMapping} to add
-     * @param updateClassViews Whether to update the class views
      */
-    public void addMapping(TopLevelClassMapping mapping, boolean updateClassViews) {
+    public void addMapping(TopLevelClassMapping mapping) {
         mappings.put(mapping.getObfuscatedName(), mapping);
-        mapping.initialize(updateClassViews);
+        mapping.initialize();
     }
 
     //TODO: probably add a removeMapping method at some point
@@ -84,6 +93,7 @@ public class MappingContext {
             setDirty(true);
         }
         context.getMappings().values().forEach(m -> m.setContext(this));
+        publish(MappingChangeEvent.merged());
     }
 
     /**
@@ -91,6 +101,67 @@ public class MappingContext {
      */
     public void clear() {
         this.mappings.clear();
+        publish(MappingChangeEvent.cleared());
+    }
+
+    /**
+     * Registers a listener to be notified of changes to the mappings of this
+     * {@link MappingContext}. Listeners receive events in the order they
+     * occurred, in batches of one or more, on the thread which made the
+     * change.
+     *
+     * @param listener The listener to register
+     */
+    public void addListener(Consumer<List<MappingChangeEvent>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters the given listener.
+     *
+     * @param listener The listener to unregister
+     */
+    public void removeListener(Consumer<List<MappingChangeEvent>> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Runs the given action, holding back the events for any changes it makes
+     * to this {@link MappingContext} until it returns so that they are
+     * published as a single batch. Batches may be nested, in which case the
+     * events are published once the outermost batch completes.
+     *
+     * @param action The action to run
+     */
+    public void batch(Runnable action) {
+        batchDepth++;
+        try {
+            action.run();
+        } finally {
+            if (--batchDepth == 0 && !pendingEvents.isEmpty()) {
+                List<MappingChangeEvent> events = ImmutableList.copyOf(pendingEvents);
+                pendingEvents.clear();
+                listeners.forEach(listener -> listener.accept(events));
+            }
+        }
+    }
+
+    /**
+     * Publishes the given event to the listeners of this
+     * {@link MappingContext}, or queues it if a batch is in progress.
+     *
+     * @param event The event to publish
+     */
+    public void publish(MappingChangeEvent event) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        if (batchDepth > 0) {
+            pendingEvents.add(event);
+        } else {
+            List<MappingChangeEvent> events = ImmutableList.of(event);
+            listeners.forEach(listener -> listener.accept(events));
+        }
     }
 
     public boolean isDirty() {
@@ -99,7 +170,7 @@ public class MappingContext {
 
     public void setDirty(boolean dirty) {
         this.dirty = dirty;
-        if (!Main.getInstance().testingEnv) {
+        if (!Main.getInstance().headless) {
             MainController.INSTANCE.saveMappingsButton.setDisable(!dirty);
             Main.updateTitle();
         }
@@ -0,0 +1,67 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.mapping.io;
+
+/**
+ * Constants describing Nocturne's binary mapping format.
+ *
+ * <p>All values are big-endian {@code int}s. A file consists of a header
+ * (the {@link #MAGIC magic number}, the {@link #VERSION format version} and
+ * the number of strings, classes, fields and methods), the string table (each
+ * string as its byte length followed by its UTF-8 bytes) and then the class,
+ * field and method records.</p>
+ *
+ * <p>Records are fixed-width. Names are stored as indices into the string
+ * table and classes as indices into the class records, where a class always
+ * follows its parent.</p>
+ *
+ * <ul>
+ *     <li>Class records hold the parent class, or {@link #NO_INDEX} for
+ *     top-level classes, and the obfuscated and deobfuscated names. Inner
+ *     classes are named by their simple names.</li>
+ *     <li>Field records hold the owning class, the obfuscated and
+ *     deobfuscated names and the type, or {@link #NO_INDEX} if it is
+ *     unknown.</li>
+ *     <li>Method records hold the owning class, the obfuscated and
+ *     deobfuscated names and the obfuscated descriptor.</li>
+ * </ul>
+ */
+public final class BinaryMappingFormat {
+
+    public static final int MAGIC = 0x4E4D4150; // "NMAP"
+    public static final int VERSION = 1;
+
+    public static final int HEADER_SIZE = 6 * Integer.BYTES;
+    public static final int CLASS_RECORD_SIZE = 3 * Integer.BYTES;
+    public static final int FIELD_RECORD_SIZE = 4 * Integer.BYTES;
+    public static final int METHOD_RECORD_SIZE = 4 * Integer.BYTES;
+
+    public static final int NO_INDEX = -1;
+
+    private BinaryMappingFormat() {
+    }
+
+}
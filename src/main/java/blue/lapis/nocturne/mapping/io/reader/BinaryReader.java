@@ -0,0 +1,217 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.mapping.io.reader;
+
+import static blue.lapis.nocturne.mapping.io.BinaryMappingFormat.CLASS_RECORD_SIZE;
+import static blue.lapis.nocturne.mapping.io.BinaryMappingFormat.FIELD_RECORD_SIZE;
+import static blue.lapis.nocturne.mapping.io.BinaryMappingFormat.HEADER_SIZE;
+import static blue.lapis.nocturne.mapping.io.BinaryMappingFormat.MAGIC;
+import static blue.lapis.nocturne.mapping.io.BinaryMappingFormat.METHOD_RECORD_SIZE;
+import static blue.lapis.nocturne.mapping.io.BinaryMappingFormat.NO_INDEX;
+import static blue.lapis.nocturne.mapping.io.BinaryMappingFormat.VERSION;
+import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
+import blue.lapis.nocturne.jar.model.attribute.Type;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.io.BinaryMappingFormat;
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.mapping.model.FieldMapping;
+import blue.lapis.nocturne.mapping.model.InnerClassMapping;
+import blue.lapis.nocturne.mapping.model.MethodMapping;
+import blue.lapis.nocturne.mapping.model.TopLevelClassMapping;
+import blue.lapis.nocturne.util.helper.MappingsHelper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The mappings reader for the {@link BinaryMappingFormat binary format}.
+ *
+ * <p>The file is read into memory in full and its records are turned into
+ * mappings directly, without the validation of names done for the text
+ * formats.
+ * Method mappings are not propagated, as the file already contains the
+ * propagated mappings. Mappings for classes absent from the loaded JAR are
+ * discarded.</p>
+ */
+public class BinaryReader extends MappingsReader {
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final String[] strings;
+    // descriptors are shared by many methods, so each is only parsed once
+    private final MethodDescriptor[] descriptors;
+
+    private int discarded;
+
+    /**
+     * Constructs a new {@link BinaryReader} which reads the given file.
+     *
+     * @param file The file to read
+     * @throws IOException If an exception occurs while reading the file, or
+     *     if it is not a binary mapping file of a supported version
+     */
+    public BinaryReader(Path file) throws IOException {
+        this.file = file;
+        this.buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary mapping file: " + file);
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary mapping format version " + version + ": " + file);
+        }
+
+        int stringCount = buffer.getInt();
+        // each string takes at least its length, so this bounds the allocations for corrupt files
+        if (stringCount < 0 || stringCount > buffer.remaining() / Integer.BYTES) {
+            throw new IOException("Malformed binary mapping file: " + file);
+        }
+        this.strings = new String[stringCount];
+        this.descriptors = new MethodDescriptor[stringCount];
+    }
+
+    @Override
+    public MappingContext read() {
+        try {
+            return readRecords();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+            // thrown for truncated files, invalid indices and sizes, and invalid descriptors
+            throw new UncheckedIOException(new IOException("Malformed binary mapping file: " + file, ex));
+        }
+    }
+
+    @Override
+    public void close() {
+        // the file has already been read in full
+    }
+
+    private MappingContext readRecords() {
+        int classCount = buffer.getInt();
+        int fieldCount = buffer.getInt();
+        int methodCount = buffer.getInt();
+
+        for (int i = 0; i < strings.length; i++) {
+            int length = buffer.getInt();
+            checkSize(length, buffer.remaining());
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        long recordsSize = (long) classCount * CLASS_RECORD_SIZE + (long) fieldCount * FIELD_RECORD_SIZE
+                + (long) methodCount * METHOD_RECORD_SIZE;
+        if (classCount < 0 || fieldCount < 0 || methodCount < 0 || buffer.remaining() != recordsSize) {
+            throw new IllegalArgumentException("Unexpected size of records");
+        }
+
+        MappingContext context = new MappingContext();
+        ClassMapping[] classes = readClasses(context, classCount);
+        readFields(classes, fieldCount);
+        readMethods(classes, methodCount);
+
+        if (discarded > 0) {
+            Main.getLogger().warning("Discarded " + discarded + " mappings for classes absent from the loaded JAR");
+        }
+        return context;
+    }
+
+    private static void checkSize(int size, int max) {
+        if (size < 0 || size > max) {
+            throw new IllegalArgumentException("Unexpected size " + size);
+        }
+    }
+
+    private ClassMapping[] readClasses(MappingContext context, int count) {
+        ClassMapping[] classes = new ClassMapping[count];
+        String[] names = new String[count];
+        for (int i = 0; i < count; i++) {
+            int parent = buffer.getInt();
+            String obf = strings[buffer.getInt()];
+            String deobf = strings[buffer.getInt()];
+
+            if (parent >= i || parent < NO_INDEX) {
+                throw new IllegalArgumentException("Class record " + i + " precedes its parent");
+            }
+            names[i] = parent == NO_INDEX ? obf : names[parent] + INNER_CLASS_SEPARATOR_CHAR + obf;
+            if (parent != NO_INDEX && classes[parent] == null
+                    || !Main.getLoadedJar().getClass(names[i]).isPresent()) {
+                discarded++;
+                continue;
+            }
+
+            if (parent == NO_INDEX) {
+                TopLevelClassMapping mapping = new TopLevelClassMapping(context, MappingsHelper.internName(obf), deobf);
+                context.addMapping(mapping);
+                classes[i] = mapping;
+            } else {
+                classes[i] = new InnerClassMapping(classes[parent], MappingsHelper.internName(obf), deobf);
+            }
+        }
+        return classes;
+    }
+
+    private void readFields(ClassMapping[] classes, int count) {
+        for (int i = 0; i < count; i++) {
+            ClassMapping parent = classes[buffer.getInt()];
+            String obf = strings[buffer.getInt()];
+            String deobf = strings[buffer.getInt()];
+            int type = buffer.getInt();
+            if (parent == null) {
+                discarded++;
+                continue;
+            }
+            new FieldMapping(parent, MappingsHelper.internMemberName(parent.getFullObfuscatedName(), obf), deobf,
+                    type != NO_INDEX ? Type.fromString(strings[type]) : null);
+        }
+    }
+
+    private void readMethods(ClassMapping[] classes, int count) {
+        for (int i = 0; i < count; i++) {
+            ClassMapping parent = classes[buffer.getInt()];
+            String obf = strings[buffer.getInt()];
+            String deobf = strings[buffer.getInt()];
+            int descriptor = buffer.getInt();
+            if (parent == null) {
+                discarded++;
+                continue;
+            }
+            if (descriptors[descriptor] == null) {
+                descriptors[descriptor] = MethodDescriptor.fromString(strings[descriptor]);
+            }
+            new MethodMapping(parent, MappingsHelper.internMemberName(parent.getFullObfuscatedName(), obf), deobf,
+                    descriptors[descriptor], false);
+        }
+    }
+
+}
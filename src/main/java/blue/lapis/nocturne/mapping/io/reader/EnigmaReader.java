@@ -22,98 +22,221 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
  */
-
 package blue.lapis.nocturne.mapping.io.reader;
 
+import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_CHAR;
+import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
+
 import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.attribute.Type;
 import blue.lapis.nocturne.mapping.MappingContext;
 import blue.lapis.nocturne.util.helper.MappingsHelper;
 
 import java.io.BufferedReader;
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * The mappings reader for the Enigma format.
+ *
+ * <p>Lines are applied as they are read, with inner classes and members
+ * being attributed to the enclosing class by their indentation. Malformed
+ * lines are logged and skipped.</p>
  */
 public class EnigmaReader extends MappingsReader {
 
+    private static final String CLASS_KEY = "CLASS";
+    private static final String FIELD_KEY = "FIELD";
+    private static final String METHOD_KEY = "METHOD";
+    private static final String ARG_KEY = "ARG";
+    private static final String COMMENT_KEY = "COMMENT";
+
+    // older versions of Enigma place classes in the default package into this package
+    private static final String DEFAULT_PACKAGE_PREFIX = "none/";
+
+    private static final Pattern WHITESPACE_PATTERN = Pattern.compile("\\s+");
+
+    private final BufferedReader reader;
+
     public EnigmaReader(BufferedReader reader) {
-        super(reader);
+        this.reader = reader;
+    }
+
+    public EnigmaReader(Path file) throws IOException {
+        this(Files.newBufferedReader(file, StandardCharsets.UTF_8));
     }
 
     @Override
     public MappingContext read() {
         MappingContext mappings = new MappingContext();
 
-        String currentClass = null;
-        int lineNum = 0;
-        for (String line : reader.lines().collect(Collectors.toList())) {
-            lineNum++;
-            String[] arr = line.trim().split(" ");
-            if (arr.length == 0) {
-                continue;
-            }
-            switch (arr[0]) {
-                case "CLASS": {
-                    if (arr.length < 2 || arr.length > 3) {
-                        System.err.println("Cannot parse file: malformed class mapping on line " + lineNum);
-                        System.exit(1);
-                    }
+        // the obfuscated names of the classes enclosing the current line, by
+        // indentation (null for classes which could not be read)
+        List<String> classes = new ArrayList<>();
+        // the indentation of the method enclosing the current line, if any
+        int methodIndent = -1;
 
-                    String obf = arr[1].replace("none/", "");
-                    String deobf = arr.length == 3 ? arr[2] : obf;
-                    //TODO: handle inner classes
-                    MappingsHelper.genClassMapping(Main.getMappingContext(), obf, deobf, false);
-                    currentClass = obf;
-                    break;
-                }
-                case "FIELD": {
-                    if (arr.length != 4) {
-                        System.err.println("Cannot parse file: malformed field mapping on line " + lineNum);
-                        System.exit(1);
-                    }
+        try {
+            String line;
+            int lineNum = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNum++;
 
-                    if (currentClass == null) {
-                        throw new IllegalArgumentException("Cannot parse file: found field mapping before initial "
-                                + "class mapping on line " + lineNum);
-                    }
+                int commentStart = line.indexOf('#');
+                if (commentStart != -1) {
+                    line = line.substring(0, commentStart);
+                }
+                int indent = 0;
+                while (indent < line.length() && line.charAt(indent) == '\t') {
+                    indent++;
+                }
+                String trimmed = line.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                String[] arr = WHITESPACE_PATTERN.split(trimmed);
 
-                    String obf = arr[1];
-                    String deobf = arr[2];
-                    String type = arr[3];
-                    MappingsHelper.genFieldMapping(Main.getMappingContext(), currentClass, obf, deobf); // TODO: type
-                    break;
+                // leave the classes and methods which the line isn't nested in
+                while (classes.size() > indent) {
+                    classes.remove(classes.size() - 1);
+                }
+                if (methodIndent >= indent) {
+                    methodIndent = -1;
                 }
-                case "METHOD": {
-                    if (arr.length == 3) {
-                        continue;
-                    }
 
-                    if (arr.length != 4) {
-                        throw new IllegalArgumentException("Cannot parse file: malformed method mapping on line "
-                                + lineNum);
+                switch (arr[0]) {
+                    case CLASS_KEY: {
+                        if (indent > classes.size()) {
+                            warn("Unexpected indentation", lineNum);
+                        } else {
+                            classes.add(readClass(mappings, classes, arr, lineNum));
+                        }
+                        break;
                     }
-
-                    if (currentClass == null) {
-                        throw new IllegalArgumentException("Cannot parse file: found method mapping before initial "
-                                + "class mapping on line " + lineNum);
+                    case FIELD_KEY: {
+                        if (indent == 0 || indent > classes.size()) {
+                            warn("Field mapping outside of class", lineNum);
+                        } else if (arr.length != 3 && arr.length != 4) {
+                            warn("Malformed field mapping", lineNum);
+                        } else if (arr.length == 4 && classes.get(indent - 1) != null) {
+                            readField(mappings, classes.get(indent - 1), arr, lineNum);
+                        }
+                        break;
+                    }
+                    case METHOD_KEY: {
+                        if (indent == 0 || indent > classes.size()) {
+                            warn("Method mapping outside of class", lineNum);
+                        } else if (arr.length != 3 && arr.length != 4) {
+                            warn("Malformed method mapping", lineNum);
+                        } else {
+                            // methods without a mapping may still carry argument mappings
+                            methodIndent = indent;
+                            if (arr.length == 4 && classes.get(indent - 1) != null) {
+                                readMethod(mappings, classes.get(indent - 1), arr, lineNum);
+                            }
+                        }
+                        break;
+                    }
+                    case ARG_KEY: {
+                        // argument names aren't part of the mapping model, so they're only validated
+                        if (methodIndent == -1 || indent != methodIndent + 1) {
+                            warn("Argument mapping outside of method", lineNum);
+                        } else if (arr.length != 3) {
+                            warn("Malformed argument mapping", lineNum);
+                        }
+                        break;
+                    }
+                    case COMMENT_KEY: {
+                        break;
+                    }
+                    default: {
+                        warn("Unrecognized mapping", lineNum);
                     }
-
-                    String obf = arr[1];
-                    String deobf = arr[2];
-                    String sig = arr[3];
-                    MappingsHelper.genMethodMapping(Main.getMappingContext(), currentClass, obf, deobf, sig);
-                    break;
-                }
-                case "ARG": {
-                    break;
-                }
-                default: {
-                    Main.getLogger().warning("Unrecognized mapping on line " + lineNum);
                 }
             }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
 
         return mappings;
     }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static String readClass(MappingContext context, List<String> classes, String[] arr, int lineNum) {
+        if (arr.length != 2 && arr.length != 3) {
+            warn("Malformed class mapping", lineNum);
+            return null;
+        }
+
+        String obf = stripDefaultPackage(arr[1]);
+        String deobf = arr.length == 3 ? stripDefaultPackage(arr[2]) : null;
+        if (classes.isEmpty()) {
+            if (deobf != null) {
+                MappingsHelper.genClassMapping(context, obf, deobf);
+            }
+            return obf;
+        }
+
+        String parent = classes.get(classes.size() - 1);
+        if (parent == null) {
+            return null; // the outer class has already been reported
+        }
+        // inner classes are named either by their full or by their simple obfuscated name
+        if (obf.indexOf(INNER_CLASS_SEPARATOR_CHAR) == -1 && obf.indexOf(CLASS_PATH_SEPARATOR_CHAR) == -1) {
+            obf = parent + INNER_CLASS_SEPARATOR_CHAR + obf;
+        } else if (!obf.startsWith(parent + INNER_CLASS_SEPARATOR_CHAR)) {
+            warn("Inner class mapping for class \"" + obf + "\" nested in \"" + parent + "\"", lineNum);
+            return null;
+        }
+        if (deobf != null) {
+            // only the innermost name of the deobfuscated name is used for inner classes
+            deobf = deobf.substring(deobf.lastIndexOf(INNER_CLASS_SEPARATOR_CHAR) + 1);
+            MappingsHelper.genClassMapping(context, obf, parent + INNER_CLASS_SEPARATOR_CHAR + deobf);
+        }
+        return obf;
+    }
+
+    private static void readField(MappingContext context, String owningClass, String[] arr, int lineNum) {
+        Type type;
+        try {
+            type = Type.fromString(stripDefaultPackages(arr[3]));
+        } catch (IllegalArgumentException ex) {
+            warn("Malformed field type", lineNum);
+            return;
+        }
+        MappingsHelper.genFieldMapping(context, owningClass, arr[1], arr[2], type);
+    }
+
+    private static void readMethod(MappingContext context, String owningClass, String[] arr, int lineNum) {
+        try {
+            MappingsHelper.genMethodMapping(context, owningClass, arr[1], arr[2], stripDefaultPackages(arr[3]));
+        } catch (IllegalArgumentException ex) {
+            warn("Malformed method descriptor", lineNum);
+        }
+    }
+
+    private static String stripDefaultPackage(String className) {
+        return className.startsWith(DEFAULT_PACKAGE_PREFIX)
+                ? className.substring(DEFAULT_PACKAGE_PREFIX.length())
+                : className;
+    }
+
+    private static String stripDefaultPackages(String descriptor) {
+        return descriptor.replace("L" + DEFAULT_PACKAGE_PREFIX, "L");
+    }
+
+    private static void warn(String message, int lineNum) {
+        Main.getLogger().warning(message + " on line " + lineNum + " - ignoring");
+    }
+
 }
@@ -26,55 +26,119 @@
 package blue.lapis.nocturne.mapping.io.reader;
 
 import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.mapping.MappingContext;
 
-import com.google.common.collect.Maps;
 import javafx.stage.FileChooser;
 
-import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
-import java.util.Arrays;
-import java.util.Map;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
 
 public enum MappingReaderType {
 
-    SRG(new FileChooser.ExtensionFilter(Main.getResourceBundle().getString("filechooser.type_srg"), "*.srg"),
-            SrgReader.class);
-    /*ENIGMA(new FileChooser.ExtensionFilter(Main.getResourceBundle().getString("filechooser.type_enigma"), "*.*"),
-            EnigmaReader.class);*/
+    SRG("filechooser.type_srg", "srg", SrgReader.class),
+    ENIGMA("filechooser.type_enigma", "mapping", EnigmaReader.class),
+    BINARY("filechooser.type_binary", "nmap", BinaryReader.class);
 
-    private static final Map<FileChooser.ExtensionFilter, MappingReaderType> filterToType = Maps.newHashMap();
-
-    static {
-        Arrays.asList(values()).forEach(t -> filterToType.put(t.getExtensionFilter(), t));
-    }
-
-    private final FileChooser.ExtensionFilter extensionFilter;
+    private final String descriptionKey;
+    private final String extension;
     private final Constructor<? extends MappingsReader> readerCtor;
 
-    MappingReaderType(FileChooser.ExtensionFilter extensionFilter, Class<? extends MappingsReader> readerClass) {
-        this.extensionFilter = extensionFilter;
+    // created on demand so that reader types can be used without the GUI
+    private FileChooser.ExtensionFilter extensionFilter;
+
+    MappingReaderType(String descriptionKey, String extension, Class<? extends MappingsReader> readerClass) {
+        this.descriptionKey = descriptionKey;
+        this.extension = extension;
         try {
-            this.readerCtor = readerClass.getConstructor(BufferedReader.class);
+            this.readerCtor = readerClass.getConstructor(Path.class);
         } catch (NoSuchMethodException ex) {
             throw new RuntimeException("Failed to initialize reader type for class " + readerClass.getName(), ex);
         }
     }
 
     public FileChooser.ExtensionFilter getExtensionFilter() {
+        if (this.extensionFilter == null) {
+            this.extensionFilter = new FileChooser.ExtensionFilter(Main.getResourceBundle().getString(descriptionKey),
+                    "*." + extension);
+        }
         return this.extensionFilter;
     }
 
-    public MappingsReader constructReader(BufferedReader reader) {
+    /**
+     * Returns the file extension associated with this reader type.
+     *
+     * @return The file extension, without a leading dot
+     */
+    public String getExtension() {
+        return this.extension;
+    }
+
+    /**
+     * Constructs a reader of this type over the given file.
+     *
+     * @param file The mapping file to read
+     * @return The new reader
+     * @throws IOException If an exception occurs while opening the file
+     */
+    public MappingsReader constructReader(Path file) throws IOException {
         try {
-            return readerCtor.newInstance(reader);
-        } catch (IllegalAccessException | InstantiationException | InvocationTargetException ex) {
+            return readerCtor.newInstance(file);
+        } catch (InvocationTargetException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new RuntimeException("Failed to construct reader with class "
+                    + readerCtor.getDeclaringClass().getName(), ex);
+        } catch (IllegalAccessException | InstantiationException ex) {
             throw new RuntimeException("Failed to construct reader with class "
                     + readerCtor.getDeclaringClass().getName(), ex);
         }
     }
 
+    /**
+     * Reads the mappings contained by the given file.
+     *
+     * @param file The mapping file to read
+     * @return The read mappings
+     * @throws IOException If an exception occurs while reading the file
+     */
+    public MappingContext read(Path file) throws IOException {
+        try (MappingsReader reader = constructReader(file)) {
+            return reader.read();
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
     public static MappingReaderType fromExtensionFilter(FileChooser.ExtensionFilter filter) {
-        return filterToType.get(filter);
+        for (MappingReaderType type : values()) {
+            if (type.extensionFilter == filter) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the reader type associated with the extension of the given file
+     * name, if any.
+     *
+     * @param fileName The name of the mapping file
+     * @return The reader type for the file, or {@link Optional#empty()} if
+     *     its extension is not recognized
+     */
+    public static Optional<MappingReaderType> fromFileName(String fileName) {
+        String lowerName = fileName.toLowerCase(Locale.ROOT);
+        for (MappingReaderType type : values()) {
+            if (lowerName.endsWith("." + type.getExtension())) {
+                return Optional.of(type);
+            }
+        }
+        return Optional.empty();
     }
 }
@@ -25,40 +25,24 @@
 
 package blue.lapis.nocturne.mapping.io.reader;
 
-import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
-
 import blue.lapis.nocturne.mapping.MappingContext;
 
-import java.io.BufferedReader;
 import java.io.Closeable;
-import java.io.IOException;
 
 /**
  * Superclass for all reader classes.
+ *
+ * <p>Readers are constructed over their source, and read it in full when
+ * {@link #read()} is called. Exceptions occurring while reading are thrown as
+ * {@link java.io.UncheckedIOException}s.</p>
  */
 public abstract class MappingsReader implements Closeable {
 
-    protected final BufferedReader reader;
-
-    protected MappingsReader(BufferedReader reader) {
-        this.reader = reader;
-    }
-
     /**
-     * Reads from the given {@link BufferedReader}.
+     * Reads the mappings from this reader's source.
      *
-     * @return A {@link MappingContext} from the {@link BufferedReader}.
+     * @return A {@link MappingContext} containing the read mappings
      */
     public abstract MappingContext read();
 
-    protected int getClassNestingLevel(String name) {
-        return name.split(" ")[1].length()
-                - name.split(" ")[1].replace(INNER_CLASS_SEPARATOR_CHAR + "", "").length();
-    }
-
-    @Override
-    public void close() throws IOException {
-        reader.close();
-    }
-
 }
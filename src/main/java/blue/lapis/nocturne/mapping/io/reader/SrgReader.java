@@ -31,13 +31,26 @@ import blue.lapis.nocturne.mapping.MappingContext;
 import blue.lapis.nocturne.util.helper.MappingsHelper;
 
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The mappings reader, for the SRG format.
+ *
+ * <p>Large files are memory-mapped and split at line boundaries into chunks
+ * which are tokenized in parallel. The resulting entries are applied in file
+ * order as each chunk completes, so the mappings read are the same as those
+ * read sequentially.</p>
  */
 public class SrgReader extends MappingsReader {
 
@@ -49,69 +62,183 @@ public class SrgReader extends MappingsReader {
     private static final int FIELD_MAPPING_ELEMENT_COUNT = 3;
     private static final int METHOD_MAPPING_ELEMENT_COUNT = 5;
 
+    // files smaller than this are read sequentially, as splitting them isn't worth it
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+
+    private final BufferedReader reader;
+    // the file being read, if known, so that it may be read in chunks
+    private final Path file;
+
     public SrgReader(BufferedReader reader) {
-        super(reader);
+        this(reader, null);
+    }
+
+    public SrgReader(Path file) throws IOException {
+        this(Files.newBufferedReader(file, StandardCharsets.UTF_8), file);
+    }
+
+    private SrgReader(BufferedReader reader, Path file) {
+        this.reader = reader;
+        this.file = file;
     }
 
     @Override
     public MappingContext read() {
-        MappingContext mappings = new MappingContext();
-
-        Pattern spacePattern = Pattern.compile(" ", Pattern.LITERAL);
-        List<String> rawClassMappings = new ArrayList<>();
-        List<String> rawFieldMappings = new ArrayList<>();
-        List<String> rawMethodMappings = new ArrayList<>();
-
-        for (String line : reader.lines().collect(Collectors.toList())) {
-            int len = spacePattern.split(line).length;
-            if (line.startsWith(CLASS_MAPPING_KEY) && len == CLASS_MAPPING_ELEMENT_COUNT) {
-                rawClassMappings.add(line);
-            } else if (line.startsWith(FIELD_MAPPING_KEY) && len == FIELD_MAPPING_ELEMENT_COUNT) {
-                rawFieldMappings.add(line);
-            } else if (line.startsWith(METHOD_MAPPING_KEY) && len == METHOD_MAPPING_ELEMENT_COUNT) {
-                rawMethodMappings.add(line);
+        try {
+            if (file != null) {
+                long size = Files.size(file);
+                int chunkCount = (int) Math.min(Runtime.getRuntime().availableProcessors() * 2,
+                        size / MIN_CHUNK_SIZE);
+                if (chunkCount >= 2 && size <= Integer.MAX_VALUE) {
+                    return readChunks(chunkCount);
+                }
             }
+
+            MappingContext mappings = new MappingContext();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] entry = tokenize(line, 0, line.length());
+                if (entry != null) {
+                    apply(mappings, entry);
+                }
+            }
+            return mappings;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
         }
+    }
 
-        // we need to sort the class mappings in order of ascending nesting level
-        rawClassMappings.sort((s1, s2) -> getClassNestingLevel(s1) - getClassNestingLevel(s2));
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
 
-        genClassMappings(mappings, rawClassMappings);
-        genFieldMappings(mappings, rawFieldMappings);
-        genMethodMappings(mappings, rawMethodMappings);
+    private MappingContext readChunks(int chunkCount) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            List<CompletableFuture<List<String[]>>> chunks = new ArrayList<>(chunkCount);
+            int start = 0;
+            for (int i = 1; i <= chunkCount && start < size; i++) {
+                int end = i == chunkCount ? (int) size : nextLine(buffer, (int) (size * i / chunkCount));
+                if (end <= start) {
+                    continue;
+                }
+                final int chunkStart = start;
+                chunks.add(CompletableFuture.supplyAsync(() -> tokenizeChunk(buffer, chunkStart, end)));
+                start = end;
+            }
 
-        return mappings;
+            MappingContext mappings = new MappingContext();
+            for (CompletableFuture<List<String[]>> chunk : chunks) {
+                for (String[] entry : chunk.join()) {
+                    apply(mappings, entry);
+                }
+            }
+            return mappings;
+        }
     }
 
-    private void genClassMappings(MappingContext context, List<String> classMappings) {
-        for (String mapping : classMappings) {
-            String[] arr = mapping.split(" ");
-            String obf = arr[1];
-            String deobf = arr[2];
-            MappingsHelper.genClassMapping(context, obf, deobf, false);
+    private static int nextLine(ByteBuffer buffer, int from) {
+        for (int i = from; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                return i + 1;
+            }
         }
+        return buffer.limit();
     }
 
-    private void genFieldMappings(MappingContext context, List<String> fieldMappings) {
-        for (String mapping : fieldMappings) {
-            String[] arr = mapping.split(" ");
-            int lastIndex = arr[1].lastIndexOf(CLASS_PATH_SEPARATOR_CHAR);
-            String owningClass = arr[1].substring(0, lastIndex);
-            String obf = arr[1].substring(lastIndex + 1);
-            String deobf = arr[2].substring(arr[2].lastIndexOf(CLASS_PATH_SEPARATOR_CHAR) + 1);
-            MappingsHelper.genFieldMapping(context, owningClass, obf, deobf);
+    private static List<String[]> tokenizeChunk(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        ByteBuffer view = buffer.duplicate();
+        view.position(start);
+        view.get(bytes);
+        String text = new String(bytes, StandardCharsets.UTF_8);
+
+        List<String[]> entries = new ArrayList<>();
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd == -1) {
+                lineEnd = text.length();
+            }
+            String[] entry = tokenize(text, lineStart, lineEnd > lineStart && text.charAt(lineEnd - 1) == '\r'
+                    ? lineEnd - 1
+                    : lineEnd);
+            if (entry != null) {
+                entries.add(entry);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return entries;
+    }
+
+    /**
+     * Splits the given line of SRG on single spaces, returning the elements
+     * of the line if it is a valid class, field or method mapping, or
+     * {@code null} otherwise.
+     *
+     * @param text The text containing the line
+     * @param start The index at which the line starts
+     * @param end The index at which the line ends, exclusive of any line
+     *     terminator
+     * @return The elements of the mapping, or {@code null}
+     */
+    private static String[] tokenize(String text, int start, int end) {
+        int expected;
+        if (text.startsWith(CLASS_MAPPING_KEY, start)) {
+            expected = CLASS_MAPPING_ELEMENT_COUNT;
+        } else if (text.startsWith(FIELD_MAPPING_KEY, start)) {
+            expected = FIELD_MAPPING_ELEMENT_COUNT;
+        } else if (text.startsWith(METHOD_MAPPING_KEY, start)) {
+            expected = METHOD_MAPPING_ELEMENT_COUNT;
+        } else {
+            return null;
+        }
+
+        // trailing spaces are ignored, as they were when the line was split with String#split
+        while (end > start && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+
+        String[] elements = new String[expected];
+        int elementStart = start;
+        for (int i = 0; i < expected; i++) {
+            int elementEnd = i == expected - 1 ? end : text.indexOf(' ', elementStart);
+            if (elementEnd == -1 || elementEnd > end) {
+                return null;
+            }
+            elements[i] = text.substring(elementStart, elementEnd);
+            elementStart = elementEnd + 1;
         }
+        return elements[expected - 1].indexOf(' ') == -1 ? elements : null;
     }
 
-    private void genMethodMappings(MappingContext context, List<String> methodMappings) {
-        for (String mapping : methodMappings) {
-            String[] arr = mapping.split(" ");
-            int lastIndex = arr[1].lastIndexOf(CLASS_PATH_SEPARATOR_CHAR);
-            String owningClass = arr[1].substring(0, lastIndex);
-            String obf = arr[1].substring(lastIndex + 1);
-            String descriptor = arr[2];
-            String deobf = arr[3].substring(arr[3].lastIndexOf(CLASS_PATH_SEPARATOR_CHAR) + 1);
-            MappingsHelper.genMethodMapping(context, owningClass, obf, deobf, descriptor);
+    private static void apply(MappingContext context, String[] entry) {
+        switch (entry.length) {
+            case CLASS_MAPPING_ELEMENT_COUNT: {
+                if (entry[0].charAt(0) == CLASS_MAPPING_KEY.charAt(0)) {
+                    MappingsHelper.genClassMapping(context, entry[1], entry[2]);
+                } else {
+                    int lastIndex = entry[1].lastIndexOf(CLASS_PATH_SEPARATOR_CHAR);
+                    String owningClass = entry[1].substring(0, lastIndex);
+                    String obf = entry[1].substring(lastIndex + 1);
+                    String deobf = entry[2].substring(entry[2].lastIndexOf(CLASS_PATH_SEPARATOR_CHAR) + 1);
+                    MappingsHelper.genFieldMapping(context, owningClass, obf, deobf);
+                }
+                break;
+            }
+            case METHOD_MAPPING_ELEMENT_COUNT: {
+                int lastIndex = entry[1].lastIndexOf(CLASS_PATH_SEPARATOR_CHAR);
+                String owningClass = entry[1].substring(0, lastIndex);
+                String obf = entry[1].substring(lastIndex + 1);
+                String deobf = entry[3].substring(entry[3].lastIndexOf(CLASS_PATH_SEPARATOR_CHAR) + 1);
+                MappingsHelper.genMethodMapping(context, owningClass, obf, deobf, entry[2]);
+                break;
+            }
+            default: {
+                throw new AssertionError();
+            }
         }
     }
 
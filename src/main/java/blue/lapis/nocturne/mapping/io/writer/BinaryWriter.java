@@ -0,0 +1,164 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.mapping.io.writer;
+
+import static blue.lapis.nocturne.mapping.io.BinaryMappingFormat.MAGIC;
+import static blue.lapis.nocturne.mapping.io.BinaryMappingFormat.NO_INDEX;
+import static blue.lapis.nocturne.mapping.io.BinaryMappingFormat.VERSION;
+
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.io.BinaryMappingFormat;
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.mapping.model.FieldMapping;
+import blue.lapis.nocturne.mapping.model.MethodMapping;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The mappings writer for the {@link BinaryMappingFormat binary format}.
+ *
+ * <p>Unlike the text formats, every mapping in the context is written,
+ * including mappings propagated to other classes in a method's hierarchy,
+ * so that they needn't be propagated again when read.</p>
+ */
+public class BinaryWriter extends MappingsWriter {
+
+    private static final Comparator<ClassMapping> CLASS_ORDER
+            = (o1, o2) -> o1.getObfuscatedName().compareTo(o2.getObfuscatedName());
+
+    private final DataOutputStream out;
+
+    private final Map<String, Integer> stringIndices = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+
+    private final List<int[]> classes = new ArrayList<>();
+    private final List<int[]> fields = new ArrayList<>();
+    private final List<int[]> methods = new ArrayList<>();
+
+    // the index of the class whose mappings are being collected
+    private int currentClass = NO_INDEX;
+
+    /**
+     * Constructs a new {@link BinaryWriter} which outputs to the given file.
+     *
+     * @param file The file to output to
+     * @throws IOException If an exception occurs while opening the file
+     */
+    public BinaryWriter(Path file) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+    }
+
+    @Override
+    public void write(MappingContext mappingContext) {
+        // the string table precedes the records, so every mapping is collected before anything is written
+        mappingContext.getMappings().values().stream().sorted(CLASS_ORDER).forEach(this::writeClassMapping);
+        try {
+            writeCollected();
+            out.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    @Override
+    protected void writeClassMapping(ClassMapping classMapping) {
+        int outer = currentClass;
+        currentClass = classes.size();
+        classes.add(new int[] {outer, string(classMapping.getObfuscatedName()),
+                string(classMapping.getDeobfuscatedName())});
+
+        classMapping.getFieldMappings().values().forEach(this::writeFieldMapping);
+        classMapping.getMethodMappings().values().forEach(this::writeMethodMapping);
+        classMapping.getInnerClassMappings().values().stream().sorted(CLASS_ORDER).forEach(this::writeClassMapping);
+        currentClass = outer;
+    }
+
+    @Override
+    protected void writeFieldMapping(FieldMapping fieldMapping) {
+        fields.add(new int[] {currentClass, string(fieldMapping.getObfuscatedName()),
+                string(fieldMapping.getDeobfuscatedName()),
+                fieldMapping.getType() != null ? string(fieldMapping.getType().toString()) : NO_INDEX});
+    }
+
+    @Override
+    protected void writeMethodMapping(MethodMapping mapping) {
+        methods.add(new int[] {currentClass, string(mapping.getObfuscatedName()), string(mapping.getDeobfuscatedName()),
+                string(mapping.getObfuscatedDescriptor().toString())});
+    }
+
+    private int string(String str) {
+        Integer index = stringIndices.get(str);
+        if (index == null) {
+            index = strings.size();
+            stringIndices.put(str, index);
+            strings.add(str);
+        }
+        return index;
+    }
+
+    private void writeCollected() throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(strings.size());
+        out.writeInt(classes.size());
+        out.writeInt(fields.size());
+        out.writeInt(methods.size());
+
+        for (String str : strings) {
+            byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        writeRecords(classes);
+        writeRecords(fields);
+        writeRecords(methods);
+    }
+
+    private void writeRecords(List<int[]> records) throws IOException {
+        for (int[] record : records) {
+            for (int value : record) {
+                out.writeInt(value);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.mapping.io.writer;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.mapping.model.FieldMapping;
+import blue.lapis.nocturne.mapping.model.Mapping;
+import blue.lapis.nocturne.mapping.model.MethodMapping;
+import blue.lapis.nocturne.processor.index.model.IndexedClass;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.function.Predicate;
+
+/**
+ * The mappings writer, for the Enigma format.
+ *
+ * <p>Inner classes and members are nested below their enclosing class by
+ * indentation. Classes without any mappings in them are omitted.</p>
+ */
+public class EnigmaWriter extends MappingsWriter {
+
+    private static final Predicate<Mapping> NOT_USELESS
+            = mapping -> !mapping.getObfuscatedName().equals(mapping.getDeobfuscatedName());
+
+    private static final Comparator<ClassMapping> CLASS_ORDER
+            = (o1, o2) -> o1.getFullObfuscatedName().compareToIgnoreCase(o2.getFullObfuscatedName());
+    private static final Comparator<Mapping> MEMBER_ORDER
+            = (o1, o2) -> o1.getObfuscatedName().compareToIgnoreCase(o2.getObfuscatedName());
+    private static final Comparator<MethodMapping> METHOD_ORDER = (o1, o2) -> {
+        int result = MEMBER_ORDER.compare(o1, o2);
+        return result != 0 ? result
+                : o1.getObfuscatedDescriptor().toString().compareTo(o2.getObfuscatedDescriptor().toString());
+    };
+
+    private final PrintWriter out;
+
+    private int depth;
+
+    /**
+     * Constructs a new {@link EnigmaWriter} which outputs to the given
+     * {@link PrintWriter}.
+     *
+     * @param out The {@link PrintWriter} to output to
+     */
+    public EnigmaWriter(PrintWriter out) {
+        this.out = out;
+    }
+
+    /**
+     * Constructs a new {@link EnigmaWriter} which outputs to the given file.
+     *
+     * @param file The file to output to
+     * @throws IOException If an exception occurs while opening the file
+     */
+    public EnigmaWriter(Path file) throws IOException {
+        this(new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void write(MappingContext mappingContext) {
+        mappingContext.getMappings().values().stream().filter(EnigmaWriter::hasMappings).sorted(CLASS_ORDER)
+                .forEach(this::writeClassMapping);
+        out.close();
+    }
+
+    @Override
+    public void close() {
+        out.close();
+    }
+
+    @Override
+    protected void writeClassMapping(ClassMapping classMapping) {
+        writeIndent();
+        // top-level classes are written by their qualified names, inner classes by their simple names
+        out.print("CLASS ");
+        out.print(depth == 0 ? classMapping.getFullObfuscatedName() : classMapping.getObfuscatedName());
+        if (NOT_USELESS.test(classMapping)) {
+            out.print(' ');
+            out.print(depth == 0 ? classMapping.getFullDeobfuscatedName() : classMapping.getDeobfuscatedName());
+        }
+        out.print('\n');
+
+        depth++;
+        classMapping.getInnerClassMappings().values().stream().filter(EnigmaWriter::hasMappings).sorted(CLASS_ORDER)
+                .forEach(this::writeClassMapping);
+        classMapping.getFieldMappings().values().stream().filter(NOT_USELESS).sorted(MEMBER_ORDER)
+                .forEach(this::writeFieldMapping);
+        classMapping.getMethodMappings().values().stream().filter(NOT_USELESS).sorted(METHOD_ORDER)
+                .forEach(this::writeMethodMapping);
+        depth--;
+    }
+
+    @Override
+    protected void writeFieldMapping(FieldMapping fieldMapping) {
+        // fields read from formats without types only have them in the index
+        String type;
+        if (fieldMapping.getType() != null) {
+            type = fieldMapping.getType().toString();
+        } else {
+            IndexedClass clazz = IndexedClass.INDEXED_CLASSES.get(fieldMapping.getParent().getFullObfuscatedName());
+            type = clazz != null ? clazz.getFieldDescriptor(fieldMapping.getObfuscatedName()) : null;
+            if (type == null) {
+                Main.getLogger().warning("Cannot determine type of field " + fieldMapping.getParent()
+                        .getFullObfuscatedName() + "/" + fieldMapping.getObfuscatedName() + " - omitting it");
+                return;
+            }
+        }
+
+        writeIndent();
+        out.print("FIELD ");
+        out.print(fieldMapping.getObfuscatedName());
+        out.print(' ');
+        out.print(fieldMapping.getDeobfuscatedName());
+        out.print(' ');
+        out.print(type);
+        out.print('\n');
+    }
+
+    @Override
+    protected void writeMethodMapping(MethodMapping mapping) {
+        writeIndent();
+        out.print("METHOD ");
+        out.print(mapping.getObfuscatedName());
+        out.print(' ');
+        out.print(mapping.getDeobfuscatedName());
+        out.print(' ');
+        out.print(mapping.getObfuscatedDescriptor());
+        out.print('\n');
+    }
+
+    private void writeIndent() {
+        for (int i = 0; i < depth; i++) {
+            out.print('\t');
+        }
+    }
+
+    private static boolean hasMappings(ClassMapping mapping) {
+        return NOT_USELESS.test(mapping)
+                || mapping.getFieldMappings().values().stream().anyMatch(NOT_USELESS)
+                || mapping.getMethodMappings().values().stream().anyMatch(NOT_USELESS)
+                || mapping.getInnerClassMappings().values().stream().anyMatch(EnigmaWriter::hasMappings);
+    }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.mapping.io.writer;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.mapping.MappingContext;
+
+import javafx.stage.FileChooser;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+
+public enum MappingWriterType {
+
+    SRG("filechooser.type_srg", "srg", SrgWriter.class),
+    ENIGMA("filechooser.type_enigma", "mapping", EnigmaWriter.class),
+    BINARY("filechooser.type_binary", "nmap", BinaryWriter.class);
+
+    private final String descriptionKey;
+    private final String extension;
+    private final Constructor<? extends MappingsWriter> writerCtor;
+
+    // created on demand so that writer types can be used without the GUI
+    private FileChooser.ExtensionFilter extensionFilter;
+
+    MappingWriterType(String descriptionKey, String extension, Class<? extends MappingsWriter> writerClass) {
+        this.descriptionKey = descriptionKey;
+        this.extension = extension;
+        try {
+            this.writerCtor = writerClass.getConstructor(Path.class);
+        } catch (NoSuchMethodException ex) {
+            throw new RuntimeException("Failed to initialize writer type for class " + writerClass.getName(), ex);
+        }
+    }
+
+    public FileChooser.ExtensionFilter getExtensionFilter() {
+        if (this.extensionFilter == null) {
+            this.extensionFilter = new FileChooser.ExtensionFilter(Main.getResourceBundle().getString(descriptionKey),
+                    "*." + extension);
+        }
+        return this.extensionFilter;
+    }
+
+    /**
+     * Returns the file extension associated with this writer type.
+     *
+     * @return The file extension, without a leading dot
+     */
+    public String getExtension() {
+        return this.extension;
+    }
+
+    /**
+     * Constructs a writer of this type over the given file.
+     *
+     * @param file The file to write to
+     * @return The new writer
+     * @throws IOException If an exception occurs while opening the file
+     */
+    public MappingsWriter constructWriter(Path file) throws IOException {
+        try {
+            return writerCtor.newInstance(file);
+        } catch (InvocationTargetException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new RuntimeException("Failed to construct writer with class "
+                    + writerCtor.getDeclaringClass().getName(), ex);
+        } catch (IllegalAccessException | InstantiationException ex) {
+            throw new RuntimeException("Failed to construct writer with class "
+                    + writerCtor.getDeclaringClass().getName(), ex);
+        }
+    }
+
+    /**
+     * Writes the given mappings to the given file.
+     *
+     * @param context The mappings to write
+     * @param file The file to write to
+     * @throws IOException If an exception occurs while writing the file
+     */
+    public void write(MappingContext context, Path file) throws IOException {
+        try (MappingsWriter writer = constructWriter(file)) {
+            writer.write(context);
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    public static MappingWriterType fromExtensionFilter(FileChooser.ExtensionFilter filter) {
+        for (MappingWriterType type : values()) {
+            if (type.extensionFilter == filter) {
+                return type;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the writer type associated with the extension of the given file
+     * name, if any.
+     *
+     * @param fileName The name of the mapping file
+     * @return The writer type for the file, or {@link Optional#empty()} if
+     *     its extension is not recognized
+     */
+    public static Optional<MappingWriterType> fromFileName(String fileName) {
+        String lowerName = fileName.toLowerCase(Locale.ROOT);
+        for (MappingWriterType type : values()) {
+            if (lowerName.endsWith("." + type.getExtension())) {
+                return Optional.of(type);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -31,29 +31,18 @@ import blue.lapis.nocturne.mapping.model.FieldMapping;
 import blue.lapis.nocturne.mapping.model.MethodMapping;
 
 import java.io.Closeable;
-import java.io.IOException;
-import java.io.PrintWriter;
 
 /**
  * Superclass for all writer classes.
+ *
+ * <p>Writers are constructed over their destination. Exceptions occurring
+ * while writing are thrown as {@link java.io.UncheckedIOException}s.</p>
  */
 public abstract class MappingsWriter implements Closeable {
 
-    protected final PrintWriter out;
-
-    /**
-     * Constructs a new {@link MappingsWriter} which outputs to the given
-     * {@link PrintWriter}.
-     *
-     * @param outputWriter The {@link PrintWriter} to output to
-     */
-    protected MappingsWriter(PrintWriter outputWriter) {
-        this.out = outputWriter;
-    }
-
     /**
      * Writes the given {@link MappingContext} to this {@link MappingsWriter}'s
-     * {@link PrintWriter}.
+     * destination.
      *
      * @param mappings The {@link MappingContext} to write.
      */
@@ -61,7 +50,7 @@ public abstract class MappingsWriter implements Closeable {
 
     /**
      * Writes the given {@link ClassMapping} to the {@link MappingsWriter}'s
-     * {@link PrintWriter}.
+     * destination.
      *
      * @param classMapping The {@link ClassMapping} to write
      */
@@ -69,7 +58,7 @@ public abstract class MappingsWriter implements Closeable {
 
     /**
      * Writes the given {@link FieldMapping} to the {@link MappingsWriter}'s
-     * {@link PrintWriter}.
+     * destination.
      *
      * @param fieldMapping The {@link FieldMapping} to write
      */
@@ -77,15 +66,10 @@ public abstract class MappingsWriter implements Closeable {
 
     /**
      * Writes the given {@link MethodMapping} to the {@link MappingsWriter}'s
-     * {@link PrintWriter}.
+     * destination.
      *
      * @param mapping The {@link MethodMapping} to write
      */
     protected abstract void writeMethodMapping(MethodMapping mapping);
 
-    @Override
-    public void close() throws IOException {
-        out.close();
-    }
-
 }
@@ -22,7 +22,6 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
  */
-
 package blue.lapis.nocturne.mapping.io.writer;
 
 import blue.lapis.nocturne.mapping.MappingContext;
@@ -31,26 +30,47 @@ import blue.lapis.nocturne.mapping.model.FieldMapping;
 import blue.lapis.nocturne.mapping.model.Mapping;
 import blue.lapis.nocturne.mapping.model.MethodMapping;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 /**
  * The mappings writer, for the SRG format.
+ *
+ * <p>Classes are put in order once, and the CL, FD and MD sections are then
+ * written one after another. Each section is formatted in parallel, in
+ * batches of classes which are written out as they complete, so the output is
+ * never held in memory as a whole.</p>
  */
 public class SrgWriter extends MappingsWriter {
 
     private static final Predicate<Mapping> NOT_USELESS
             = mapping -> !mapping.getObfuscatedName().equals(mapping.getDeobfuscatedName());
 
-    private final ByteArrayOutputStream clOut = new ByteArrayOutputStream();
-    private final ByteArrayOutputStream fdOut = new ByteArrayOutputStream();
-    private final ByteArrayOutputStream mdOut = new ByteArrayOutputStream();
+    // names differing only in case are ordered case-sensitively, and overloads by descriptor, so that the
+    // output doesn't depend on the iteration order of the mappings
+    private static final Comparator<ClassMapping> CLASS_ORDER
+            = Comparator.comparing(ClassMapping::getFullObfuscatedName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(ClassMapping::getFullObfuscatedName);
+    private static final Comparator<Mapping> MEMBER_ORDER
+            = Comparator.comparing(Mapping::getObfuscatedName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Mapping::getObfuscatedName);
+    private static final Comparator<MethodMapping> METHOD_ORDER = ((Comparator<MethodMapping>) MEMBER_ORDER::compare)
+            .thenComparing(mapping -> mapping.getObfuscatedDescriptor().toString());
 
-    private final PrintWriter clWriter = new PrintWriter(clOut);
-    private final PrintWriter fdWriter = new PrintWriter(fdOut);
-    private final PrintWriter mdWriter = new PrintWriter(mdOut);
+    // the number of classes formatted before their output is written
+    private static final int BATCH_SIZE = 1024;
+
+    private final PrintWriter out;
 
     /**
      * Constructs a new {@link SrgWriter} which outputs to the given
@@ -59,61 +79,127 @@ public class SrgWriter extends MappingsWriter {
      * @param out The {@link PrintWriter} to output to
      */
     public SrgWriter(PrintWriter out) {
-        super(out);
+        this.out = out;
+    }
+
+    /**
+     * Constructs a new {@link SrgWriter} which outputs to the given file.
+     *
+     * @param file The file to output to
+     * @throws IOException If an exception occurs while opening the file
+     */
+    public SrgWriter(Path file) throws IOException {
+        this(new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8)));
     }
 
     @Override
     public void write(MappingContext mappingContext) {
-        mappingContext.getMappings().values().stream().sorted(
-                (o1, o2) -> o1.getFullObfuscatedName().compareToIgnoreCase(o2.getFullObfuscatedName())
-        ).forEach(this::writeClassMapping);
-        clWriter.close();
-        fdWriter.close();
-        mdWriter.close();
-        out.write(clOut.toString());
-        out.write(fdOut.toString());
-        out.write(mdOut.toString());
+        // class mappings are written before their inner classes, members after those of their inner classes
+        List<ClassMapping> classes = new ArrayList<>();
+        List<ClassMapping> memberOrder = new ArrayList<>();
+        sort(mappingContext.getMappings().values(), classes, memberOrder);
+
+        writeSection(classes, mapping -> NOT_USELESS.test(mapping)
+                ? appendClassMapping(new StringBuilder(), mapping).toString()
+                : "");
+        writeSection(memberOrder, mapping -> {
+            StringBuilder sb = new StringBuilder();
+            String obf = mapping.getFullObfuscatedName();
+            String deobf = mapping.getFullDeobfuscatedName();
+            sorted(mapping.getFieldMappings().values(), MEMBER_ORDER)
+                    .forEach(field -> appendFieldMapping(sb, field, obf, deobf));
+            return sb.toString();
+        });
+        writeSection(memberOrder, mapping -> {
+            StringBuilder sb = new StringBuilder();
+            String obf = mapping.getFullObfuscatedName();
+            String deobf = mapping.getFullDeobfuscatedName();
+            sorted(mapping.getMethodMappings().values(), METHOD_ORDER)
+                    .forEach(method -> appendMethodMapping(sb, method, obf, deobf));
+            return sb.toString();
+        });
         out.close();
-        try {
-            clOut.close();
-            fdOut.close();
-            mdOut.close();
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
-        }
     }
 
     @Override
-    protected void writeClassMapping(ClassMapping classMapping) {
-        if (!classMapping.getObfuscatedName().equals(classMapping.getDeobfuscatedName())) {
-            clWriter.format("CL: %s %s\n",
-                    classMapping.getFullObfuscatedName(), classMapping.getFullDeobfuscatedName());
+    public void close() {
+        out.close();
+    }
+
+    private static void sort(Collection<? extends ClassMapping> mappings, List<ClassMapping> classes,
+            List<ClassMapping> memberOrder) {
+        List<ClassMapping> sorted = new ArrayList<>(mappings);
+        sorted.sort(CLASS_ORDER);
+        for (ClassMapping mapping : sorted) {
+            classes.add(mapping);
+            // inner classes which keep their names may still contain mappings
+            sort(mapping.getInnerClassMappings().values().stream().filter(SrgWriter::hasMappings)
+                    .collect(Collectors.toList()), classes, memberOrder);
+            memberOrder.add(mapping);
+        }
+    }
+
+    private static boolean hasMappings(ClassMapping mapping) {
+        return NOT_USELESS.test(mapping)
+                || mapping.getFieldMappings().values().stream().anyMatch(NOT_USELESS)
+                || mapping.getMethodMappings().values().stream().anyMatch(NOT_USELESS)
+                || mapping.getInnerClassMappings().values().stream().anyMatch(SrgWriter::hasMappings);
+    }
+
+    private static <T extends Mapping> List<T> sorted(Collection<T> mappings, Comparator<? super T> order) {
+        List<T> sorted = mappings.stream().filter(NOT_USELESS).collect(Collectors.toList());
+        sorted.sort(order);
+        return sorted;
+    }
+
+    private void writeSection(List<ClassMapping> classes, Function<ClassMapping, String> formatter) {
+        for (int start = 0; start < classes.size(); start += BATCH_SIZE) {
+            classes.subList(start, Math.min(start + BATCH_SIZE, classes.size())).parallelStream()
+                    .map(formatter)
+                    .collect(Collectors.toList())
+                    .forEach(out::write);
         }
+    }
 
-        classMapping.getInnerClassMappings().values().stream().filter(NOT_USELESS).sorted(
-            (o1, o2) -> o1.getFullObfuscatedName().compareToIgnoreCase(o2.getFullObfuscatedName())
-        ).forEach(this::writeClassMapping);
-        classMapping.getFieldMappings().values().stream().filter(NOT_USELESS).sorted(
-                (o1, o2) -> o1.getObfuscatedName().compareToIgnoreCase(o2.getObfuscatedName())
-        ).forEach(this::writeFieldMapping);
-        classMapping.getMethodMappings().values().stream().filter(NOT_USELESS).sorted(
-                (o1, o2) -> o1.getObfuscatedName().compareToIgnoreCase(o2.getObfuscatedName())
-        ).forEach(this::writeMethodMapping);
+    @Override
+    protected void writeClassMapping(ClassMapping classMapping) {
+        out.write(appendClassMapping(new StringBuilder(), classMapping).toString());
     }
 
     @Override
     protected void writeFieldMapping(FieldMapping fieldMapping) {
-        fdWriter.format("FD: %s/%s %s/%s\n",
-                fieldMapping.getParent().getFullObfuscatedName(), fieldMapping.getObfuscatedName(),
-                fieldMapping.getParent().getFullDeobfuscatedName(), fieldMapping.getDeobfuscatedName());
+        ClassMapping parent = fieldMapping.getParent();
+        out.write(appendFieldMapping(new StringBuilder(), fieldMapping, parent.getFullObfuscatedName(),
+                parent.getFullDeobfuscatedName()).toString());
     }
 
     @Override
     protected void writeMethodMapping(MethodMapping mapping) {
-        mdWriter.format("MD: %s/%s %s %s/%s %s\n",
-                mapping.getParent().getFullObfuscatedName(), mapping.getObfuscatedName(),
-                mapping.getObfuscatedDescriptor(),
-                mapping.getParent().getFullDeobfuscatedName(), mapping.getDeobfuscatedName(),
-                mapping.getDeobfuscatedDescriptor());
+        ClassMapping parent = mapping.getParent();
+        out.write(appendMethodMapping(new StringBuilder(), mapping, parent.getFullObfuscatedName(),
+                parent.getFullDeobfuscatedName()).toString());
+    }
+
+    private static StringBuilder appendClassMapping(StringBuilder sb, ClassMapping mapping) {
+        return sb.append("CL: ").append(mapping.getFullObfuscatedName())
+                .append(' ').append(mapping.getFullDeobfuscatedName()).append('\n');
+    }
+
+    private static StringBuilder appendFieldMapping(StringBuilder sb, FieldMapping mapping, String parentObf,
+            String parentDeobf) {
+        return sb.append("FD: ").append(parentObf)
+                .append('/').append(mapping.getObfuscatedName())
+                .append(' ').append(parentDeobf)
+                .append('/').append(mapping.getDeobfuscatedName()).append('\n');
+    }
+
+    private static StringBuilder appendMethodMapping(StringBuilder sb, MethodMapping mapping, String parentObf,
+            String parentDeobf) {
+        return sb.append("MD: ").append(parentObf)
+                .append('/').append(mapping.getObfuscatedName())
+                .append(' ').append(mapping.getObfuscatedDescriptor())
+                .append(' ').append(parentDeobf)
+                .append('/').append(mapping.getDeobfuscatedName())
+                .append(' ').append(mapping.getDeobfuscatedDescriptor()).append('\n');
     }
 }
@@ -28,16 +28,14 @@ package blue.lapis.nocturne.mapping.model;
 import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_PATTERN;
 
 import blue.lapis.nocturne.Main;
-import blue.lapis.nocturne.gui.MainController;
-import blue.lapis.nocturne.gui.scene.text.SelectableMember;
+import blue.lapis.nocturne.gui.scene.control.CodeTab;
 import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.mapping.MappingChangeEvent;
 import blue.lapis.nocturne.mapping.MappingContext;
 import blue.lapis.nocturne.util.helper.StringHelper;
 
-import com.google.common.collect.ImmutableMap;
-
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -50,6 +48,11 @@ public abstract class ClassMapping extends Mapping {
     private final Map<String, MethodMapping> methodMappings = new HashMap<>();
     private final Map<String, InnerClassMapping> innerClassMappings = new HashMap<>();
 
+    private final Map<String, FieldMapping> fieldMappingsView = Collections.unmodifiableMap(fieldMappings);
+    private final Map<String, MethodMapping> methodMappingsView = Collections.unmodifiableMap(methodMappings);
+    private final Map<String, InnerClassMapping> innerClassMappingsView
+            = Collections.unmodifiableMap(innerClassMappings);
+
     /**
      * Constructs a new {@link ClassMapping} with the given parameters.
      *
@@ -65,30 +68,30 @@ public abstract class ClassMapping extends Mapping {
     public abstract String getFullDeobfuscatedName();
 
     /**
-     * Gets a clone of the {@link FieldMapping}s.
+     * Gets an unmodifiable live view of the {@link FieldMapping}s.
      *
-     * @return A clone of the {@link FieldMapping}s
+     * @return A view of the {@link FieldMapping}s
      */
-    public ImmutableMap<String, FieldMapping> getFieldMappings() {
-        return ImmutableMap.copyOf(this.fieldMappings);
+    public Map<String, FieldMapping> getFieldMappings() {
+        return fieldMappingsView;
     }
 
     /**
-     * Gets a clone of the {@link MethodMapping}s.
+     * Gets an unmodifiable live view of the {@link MethodMapping}s.
      *
-     * @return A clone of the {@link MethodMapping}s
+     * @return A view of the {@link MethodMapping}s
      */
-    public ImmutableMap<String, MethodMapping> getMethodMappings() {
-        return ImmutableMap.copyOf(this.methodMappings);
+    public Map<String, MethodMapping> getMethodMappings() {
+        return methodMappingsView;
     }
 
     /**
-     * Gets a clone of the {@link InnerClassMapping}s.
+     * Gets an unmodifiable live view of the {@link InnerClassMapping}s.
      *
-     * @return A clone of the {@link InnerClassMapping}s
+     * @return A view of the {@link InnerClassMapping}s
      */
-    public ImmutableMap<String, InnerClassMapping> getInnerClassMappings() {
-        return ImmutableMap.copyOf(this.innerClassMappings);
+    public Map<String, InnerClassMapping> getInnerClassMappings() {
+        return innerClassMappingsView;
     }
 
     /**
@@ -178,27 +181,19 @@ public abstract class ClassMapping extends Mapping {
 
     @Override
     public void setDeobfuscatedName(String name) {
-        setDeobfuscatedName(name, true);
-    }
-
-    public void setDeobfuscatedName(String name, boolean updateClassViews) {
+        final String previousName = getDeobfuscatedName();
         super.setDeobfuscatedName(name);
         updateEntryDeobfuscation();
 
-        List<SelectableMember> memberList = SelectableMember.MEMBERS.get(getMemberKey());
-        if (memberList == null) {
-            return;
+        if (isGuiPresent()) {
+            String unqualName = this instanceof InnerClassMapping ? name : StringHelper.unqualify(name);
+            CodeTab.forEachMember(getMemberKey(), member -> {
+                member.setText(unqualName);
+                member.setDeobfuscated(!unqualName.equals(member.getName()));
+            });
         }
 
-        String unqualName = this instanceof InnerClassMapping ? name : StringHelper.unqualify(name);
-        memberList.forEach(member -> {
-            member.setText(unqualName);
-            member.setDeobfuscated(!unqualName.equals(member.getName()));
-        });
-
-        if (updateClassViews) {
-            MainController.INSTANCE.updateClassViews();
-        }
+        getContext().publish(MappingChangeEvent.renamed(this, previousName));
     }
 
     public void updateEntryDeobfuscation() {
@@ -25,6 +25,7 @@
 
 package blue.lapis.nocturne.mapping.model;
 
+import blue.lapis.nocturne.Main;
 import blue.lapis.nocturne.gui.scene.text.SelectableMember;
 import blue.lapis.nocturne.mapping.MappingContext;
 
@@ -47,6 +48,16 @@ public abstract class Mapping {
         this.deobf = deobfName;
     }
 
+    /**
+     * Returns whether mapping changes should be reflected in the GUI, i.e.
+     * whether Nocturne is running neither headlessly nor under test.
+     *
+     * @return Whether the GUI should be updated
+     */
+    protected static boolean isGuiPresent() {
+        return Main.getInstance() != null && !Main.getInstance().headless;
+    }
+
     public void initialize() {
         this.setDeobfuscatedName(getDeobfuscatedName());
     }
@@ -25,11 +25,10 @@
 
 package blue.lapis.nocturne.mapping.model;
 
-import blue.lapis.nocturne.gui.scene.text.SelectableMember;
+import blue.lapis.nocturne.gui.scene.control.CodeTab;
+import blue.lapis.nocturne.mapping.MappingChangeEvent;
 import blue.lapis.nocturne.mapping.MappingContext;
 
-import java.util.List;
-
 /**
  * Represents a mapping for a class member.
  */
@@ -55,16 +54,17 @@ public abstract class MemberMapping extends Mapping implements IMemberMapping {
 
     @Override
     public void setDeobfuscatedName(String name) {
+        String previousName = getDeobfuscatedName();
         super.setDeobfuscatedName(name);
 
-        List<SelectableMember> memberList = SelectableMember.MEMBERS.get(getMemberKey());
-        if (memberList == null) {
-            return;
+        if (isGuiPresent()) {
+            CodeTab.forEachMember(getMemberKey(), member -> {
+                member.setText(name);
+                member.setDeobfuscated(!name.equals(member.getName()));
+            });
         }
-        memberList.forEach(member -> {
-            member.setText(name);
-            member.setDeobfuscated(!name.equals(member.getName()));
-        });
+
+        getContext().publish(MappingChangeEvent.renamed(this, previousName));
     }
 
     @Override
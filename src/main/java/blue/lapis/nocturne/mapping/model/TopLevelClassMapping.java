@@ -53,10 +53,6 @@ public class TopLevelClassMapping extends ClassMapping {
         this.parent = parent;
     }
 
-    public void initialize(boolean updateClassViews) {
-        this.setDeobfuscatedName(getDeobfuscatedName(), updateClassViews);
-    }
-
     @Override
     public MappingContext getContext() {
         return parent;
@@ -78,13 +74,8 @@ public class TopLevelClassMapping extends ClassMapping {
 
     @Override
     public void setDeobfuscatedName(String deobfuscatedName) {
-        setDeobfuscatedName(deobfuscatedName, true);
-    }
-
-    @Override
-    public void setDeobfuscatedName(String deobfuscatedName, boolean updateClassViews) {
-        super.setDeobfuscatedName(deobfuscatedName, updateClassViews);
-        if (CodeTab.CODE_TABS.containsKey(getObfuscatedName())) {
+        super.setDeobfuscatedName(deobfuscatedName);
+        if (isGuiPresent() && CodeTab.CODE_TABS.containsKey(getObfuscatedName())) {
             CodeTab.CODE_TABS.get(getObfuscatedName())
                     .setText(CLASS_PATH_SEPARATOR_PATTERN.matcher(deobfuscatedName).replaceAll("."));
         }
@@ -30,14 +30,8 @@ import static blue.lapis.nocturne.util.helper.ByteHelper.asUshort;
 
 import blue.lapis.nocturne.processor.ClassProcessor;
 import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
-import blue.lapis.nocturne.processor.constantpool.model.structure.ConstantStructure;
-import blue.lapis.nocturne.processor.constantpool.model.structure.DummyStructure;
 import blue.lapis.nocturne.processor.constantpool.model.structure.StructureType;
 
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Reads and parses the constant pool of a class given its bytecode.
  */
@@ -47,30 +41,33 @@ public class ConstantPoolReader extends ClassProcessor {
         super(className, bytes);
     }
 
+    /**
+     * Reads the constant pool of the class, recording only the offset of each
+     * structure within the bytecode.
+     *
+     * @return A flyweight view of the constant pool
+     */
     public ImmutableConstantPool read() {
-        List<ConstantStructure> tempPool = new ArrayList<>();
+        int offset = CLASS_FORMAT_CONSTANT_POOL_OFFSET;
+        int constPoolCount = asUshort(bytes[offset], bytes[offset + 1]) - 1;
+        offset += 2;
 
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
-        buffer.get(new byte[CLASS_FORMAT_CONSTANT_POOL_OFFSET]);
-        int constPoolCount = asUshort(buffer.getShort()) - 1;
-        for (int i = 0; i < constPoolCount; i++) {
-            StructureType sType = StructureType.fromTag(buffer.get());
+        int[] offsets = new int[constPoolCount + 2]; // leave slot 0 unused to match the pool's indexing
+        for (int i = 1; i <= constPoolCount; i++) {
+            offsets[i] = offset;
+            StructureType sType = StructureType.fromTag(bytes[offset]);
             int length = sType.getLength();
             if (sType == StructureType.UTF_8) {
-                length = asUshort(buffer.getShort()) + 2;
-                buffer.position(buffer.position() - 2);
+                length = asUshort(bytes[offset + 1], bytes[offset + 2]) + 2;
             }
-            byte[] structBytes = new byte[length + 1];
-            structBytes[0] = sType.getTag();
-            buffer.get(structBytes, 1, length);
-            tempPool.add(ConstantStructure.createConstantStructure(structBytes));
+            offset += length + 1;
 
             if (sType == StructureType.DOUBLE || sType == StructureType.LONG) {
-                tempPool.add(new DummyStructure());
-                i++;
+                offsets[++i] = offset; // the unusable second slot spans zero bytes
             }
         }
-        return new ImmutableConstantPool(tempPool, buffer.position() - CLASS_FORMAT_CONSTANT_POOL_OFFSET);
+        offsets[constPoolCount + 1] = offset;
+        return new ImmutableConstantPool(bytes, offsets);
     }
 
 }
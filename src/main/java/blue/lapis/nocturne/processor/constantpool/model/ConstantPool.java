@@ -25,31 +25,44 @@
 
 package blue.lapis.nocturne.processor.constantpool.model;
 
+import blue.lapis.nocturne.processor.constantpool.model.structure.ClassStructure;
 import blue.lapis.nocturne.processor.constantpool.model.structure.ConstantStructure;
+import blue.lapis.nocturne.processor.constantpool.model.structure.NameAndTypeStructure;
+import blue.lapis.nocturne.processor.constantpool.model.structure.RefStructure;
+import blue.lapis.nocturne.processor.constantpool.model.structure.StructureType;
+import blue.lapis.nocturne.processor.constantpool.model.structure.Utf8Structure;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Represents the constant pool of a class.
+ *
+ * <p>The pool is a copy-on-write overlay over an
+ * {@link ImmutableConstantPool}: only replaced and added structures are held
+ * as objects, while all other structures are read from (and written back as)
+ * the original bytes.</p>
  */
 public class ConstantPool {
 
-    private final List<ConstantStructure> contents;
+    private final ImmutableConstantPool base;
+    private final ConstantStructure[] replaced;
+    private final List<ConstantStructure> added = new ArrayList<>();
     private int length;
 
     /**
-     * Instantiates a new {@link ConstantPool} with the given contents.
+     * Instantiates a new {@link ConstantPool} with the contents of the given
+     * {@link ImmutableConstantPool}.
      *
-     * @param contents The contents of the new {@link ConstantPool}
-     * @param length The length of the constant pool in bytes
+     * @param base The initial contents of the new {@link ConstantPool}
      */
-    public ConstantPool(List<ConstantStructure> contents, int length) {
-        this.contents = Lists.newArrayList(contents);
-        this.length = length;
+    public ConstantPool(ImmutableConstantPool base) {
+        this.base = base;
+        this.replaced = new ConstantStructure[base.size() + 1];
+        this.length = base.length();
     }
 
     /**
@@ -61,7 +74,7 @@ public class ConstantPool {
      * @return The number of structures contained by this {@link ConstantPool}
      */
     public int size() {
-        return contents.size();
+        return base.size() + added.size();
     }
 
     /**
@@ -87,10 +100,83 @@ public class ConstantPool {
      *     greater than the value returned by {@link ConstantPool#size()}
      */
     public ConstantStructure get(int index) throws IndexOutOfBoundsException {
-        if (index < 1 || index > size()) {
-            throw new IndexOutOfBoundsException("Constant pool index " + index + " out-of-bounds");
+        ConstantStructure cs = getOverlaid(index);
+        return cs != null ? cs : base.get(index);
+    }
+
+    /**
+     * Returns the type of the structure at the given index of this
+     * <strong>1-indexed</strong> constant pool.
+     *
+     * @param index The index of the structure
+     * @return The type of the structure
+     * @throws IndexOutOfBoundsException If the given index is less than 1 or
+     *     greater than the value returned by {@link ConstantPool#size()}
+     */
+    public StructureType getType(int index) throws IndexOutOfBoundsException {
+        ConstantStructure cs = getOverlaid(index);
+        return cs != null ? cs.getType() : base.getType(index);
+    }
+
+    /**
+     * Returns the decoded value of the Utf8 structure at the given index.
+     *
+     * @param index The index of the Utf8 structure
+     * @return The decoded string
+     */
+    public String getString(int index) {
+        ConstantStructure cs = getOverlaid(index);
+        return cs != null ? ((Utf8Structure) cs).asString() : base.getString(index);
+    }
+
+    /**
+     * Returns the name index of the Class or NameAndType structure at the
+     * given index.
+     *
+     * @param index The index of the structure
+     * @return The name index of the structure
+     */
+    public int getNameIndex(int index) {
+        ConstantStructure cs = getOverlaid(index);
+        if (cs == null) {
+            return base.getNameIndex(index);
         }
-        return contents.get(index - 1);
+        return cs instanceof ClassStructure
+                ? ((ClassStructure) cs).getNameIndex()
+                : ((NameAndTypeStructure) cs).getNameIndex();
+    }
+
+    /**
+     * Returns the type index of the NameAndType structure at the given index.
+     *
+     * @param index The index of the structure
+     * @return The type index of the structure
+     */
+    public int getTypeIndex(int index) {
+        ConstantStructure cs = getOverlaid(index);
+        return cs != null ? ((NameAndTypeStructure) cs).getTypeIndex() : base.getTypeIndex(index);
+    }
+
+    /**
+     * Returns the class index of the *ref structure at the given index.
+     *
+     * @param index The index of the structure
+     * @return The class index of the structure
+     */
+    public int getClassIndex(int index) {
+        ConstantStructure cs = getOverlaid(index);
+        return cs != null ? ((RefStructure) cs).getClassIndex() : base.getClassIndex(index);
+    }
+
+    /**
+     * Returns the NameAndType index of the *ref structure at the given index.
+     *
+     * @param index The index of the structure
+     * @return The NameAndType index of the structure
+     */
+    public int getNameAndTypeIndex(int index) {
+        ConstantStructure cs = getOverlaid(index);
+        return cs != null ? ((RefStructure) cs).getNameAndTypeIndex() : base.getNameAndTypeIndex(index);
     }
 
     /**
@@ -103,23 +189,25 @@ public class ConstantPool {
      *     greater than the value returned by {@link ConstantPool#size()}
      */
     public void set(int index, ConstantStructure structure) throws IndexOutOfBoundsException {
-        if (index < 1 || index > size()) {
-            throw new IndexOutOfBoundsException("Constant pool index " + index + " out-of-bounds");
+        checkIndex(index);
+        if (index > base.size()) {
+            length += structure.getBytes().length - added.get(index - base.size() - 1).getBytes().length;
+            added.set(index - base.size() - 1, structure);
+        } else {
+            length += structure.getBytes().length
+                    - (replaced[index] != null ? replaced[index].getBytes().length : base.entryLength(index));
+            replaced[index] = structure;
         }
-        length += structure.getBytes().length - contents.get(index - 1).getBytes().length;
-        contents.set(index - 1, structure);
     }
 
     /**
      * Adds the structure to the end of this constant pool.
      *
      * @param structure The replacement structure
-     * @throws IndexOutOfBoundsException If the given index is less than 1 or
-     *     greater than the value returned by {@link ConstantPool#size()}
      */
-    public void add(ConstantStructure structure) throws IndexOutOfBoundsException {
+    public void add(ConstantStructure structure) {
         length += structure.getBytes().length;
-        contents.add(structure);
+        added.add(structure);
     }
 
     /**
@@ -128,14 +216,43 @@ public class ConstantPool {
      * @return The current contents of the constant pool
      */
     public ImmutableList<ConstantStructure> getContents() {
-        return ImmutableList.copyOf(contents);
+        ImmutableList.Builder<ConstantStructure> builder = ImmutableList.builder();
+        for (int i = 1; i <= size(); i++) {
+            builder.add(get(i));
+        }
+        return builder.build();
     }
 
     public byte[] getBytes() {
         ByteBuffer buffer = ByteBuffer.allocate(length());
         buffer.putShort((short) (size() + 1));
-        getContents().forEach(cs -> buffer.put(cs.getBytes()));
+        int i = 1;
+        while (i <= base.size()) {
+            if (replaced[i] != null) {
+                buffer.put(replaced[i].getBytes());
+                i++;
+            } else {
+                // copy the whole run of untouched structures at once
+                int runStart = i;
+                while (i <= base.size() && replaced[i] == null) {
+                    i++;
+                }
+                base.copyTo(runStart, i, buffer);
+            }
+        }
+        added.forEach(cs -> buffer.put(cs.getBytes()));
         return buffer.array();
     }
 
+    private ConstantStructure getOverlaid(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        return index > base.size() ? added.get(index - base.size() - 1) : replaced[index];
+    }
+
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if (index < 1 || index > size()) {
+            throw new IndexOutOfBoundsException("Constant pool index " + index + " out-of-bounds");
+        }
+    }
+
 }
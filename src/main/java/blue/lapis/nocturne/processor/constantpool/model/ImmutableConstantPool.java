@@ -25,55 +25,212 @@
 
 package blue.lapis.nocturne.processor.constantpool.model;
 
+import static blue.lapis.nocturne.util.Constants.CLASS_FORMAT_CONSTANT_POOL_OFFSET;
+import static blue.lapis.nocturne.util.helper.ByteHelper.asUshort;
+
 import blue.lapis.nocturne.processor.constantpool.model.structure.ConstantStructure;
+import blue.lapis.nocturne.processor.constantpool.model.structure.DummyStructure;
+import blue.lapis.nocturne.processor.constantpool.model.structure.StructureType;
+
+import com.google.common.collect.ImmutableList;
 
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * Represents the immutable constant pool of a class.
+ *
+ * <p>This is a flyweight view over the bytecode of the class: only the offset
+ * of each structure is stored, and Utf8 structures are decoded lazily upon
+ * first access. {@link ConstantStructure} objects are only created if
+ * explicitly requested through {@link ImmutableConstantPool#get(int)}.</p>
  */
-public class ImmutableConstantPool extends ConstantPool {
+public class ImmutableConstantPool {
+
+    private final byte[] bytes;
+    private final int[] offsets;
+    private final String[] strings;
 
     /**
-     * Instantiates a new {@link ImmutableConstantPool} with the given contents.
+     * Instantiates a new {@link ImmutableConstantPool} over the given class
+     * bytecode.
      *
-     * @param contents The contents of the new {@link ConstantPool}
-     * @param length The length of the constant pool in bytes
+     * @param bytes The bytecode of the class
+     * @param offsets The offset of each structure in the bytecode, indexed in
+     *     the same manner as the pool, followed by the offset at which the pool
+     *     ends. The second slot of double-width structures should hold the
+     *     offset of the structure following it, so that it spans no bytes.
      */
-    public ImmutableConstantPool(List<ConstantStructure> contents, int length) {
-        super(contents, length);
+    public ImmutableConstantPool(byte[] bytes, int[] offsets) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.strings = new String[offsets.length - 1];
     }
 
     /**
-     * <strong>This method is not supported for {@link ImmutableConstantPool}s.
-     * </strong>
+     * Returns the number of structures contained by this
+     * {@link ImmutableConstantPool}.
      *
-     * <p>Returns the structure at the given index of this
-     * <strong>1-indexed</strong> constant pool.</p>
+     * @return The number of structures contained by this
+     *     {@link ImmutableConstantPool}
+     * @see ConstantPool#size()
+     */
+    public int size() {
+        return offsets.length - 2;
+    }
+
+    /**
+     * Returns the length of this {@link ImmutableConstantPool} in bytes
+     * (including the two leading bytes denoting the entry count).
      *
-     * @param index The index of the structure to retrieve
-     * @param structure The replacement structure
-     * @throws UnsupportedOperationException Always
+     * @return The length of this {@link ImmutableConstantPool} in bytes
+     * @see ConstantPool#length()
+     */
+    public int length() {
+        return offsets[offsets.length - 1] - CLASS_FORMAT_CONSTANT_POOL_OFFSET;
+    }
+
+    /**
+     * Returns the type of the structure at the given index of this
+     * <strong>1-indexed</strong> constant pool.
+     *
+     * @param index The index of the structure
+     * @return The type of the structure, or {@link StructureType#DUMMY} if the
+     *     index is the second slot of a double-width structure
      * @throws IndexOutOfBoundsException If the given index is less than 1 or
-     *     greater than the value returned by {@link ConstantPool#size()}
+     *     greater than the value returned by
+     *     {@link ImmutableConstantPool#size()}
+     */
+    public StructureType getType(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        return entryLength(index) == 0 ? StructureType.DUMMY : StructureType.fromTag(bytes[offsets[index]]);
+    }
+
+    /**
+     * Returns the decoded value of the Utf8 structure at the given index.
+     *
+     * @param index The index of the Utf8 structure
+     * @return The decoded string
+     */
+    public String getString(int index) {
+        checkIndex(index);
+        String str = strings[index];
+        if (str == null) {
+            assert bytes[offsets[index]] == StructureType.UTF_8.getTag();
+            int offset = offsets[index];
+            str = new String(bytes, offset + 3, asUshort(bytes[offset + 1], bytes[offset + 2]),
+                    StandardCharsets.UTF_8);
+            strings[index] = str; // benign race - strings are immutable
+        }
+        return str;
+    }
+
+    /**
+     * Returns the name index of the Class or NameAndType structure at the
+     * given index.
+     *
+     * @param index The index of the structure
+     * @return The name index of the structure
+     */
+    public int getNameIndex(int index) {
+        return getUshort(index, 1);
+    }
+
+    /**
+     * Returns the type index of the NameAndType structure at the given index.
+     *
+     * @param index The index of the structure
+     * @return The type index of the structure
      */
-    @Override
-    public void set(int index, ConstantStructure structure)
-            throws UnsupportedOperationException, IndexOutOfBoundsException {
-        throw new UnsupportedOperationException();
+    public int getTypeIndex(int index) {
+        return getUshort(index, 3);
     }
 
+    /**
+     * Returns the class index of the *ref structure at the given index.
+     *
+     * @param index The index of the structure
+     * @return The class index of the structure
+     */
+    public int getClassIndex(int index) {
+        return getUshort(index, 1);
+    }
 
     /**
-     * Adds the structure to the end of this constant pool.
+     * Returns the NameAndType index of the *ref structure at the given index.
      *
-     * @param structure The replacement structure
+     * @param index The index of the structure
+     * @return The NameAndType index of the structure
+     */
+    public int getNameAndTypeIndex(int index) {
+        return getUshort(index, 3);
+    }
+
+    /**
+     * Materializes the structure at the given index of this
+     * <strong>1-indexed</strong> constant pool.
+     *
+     * @param index The index of the structure to retrieve
+     * @return The retrieved structure
      * @throws IndexOutOfBoundsException If the given index is less than 1 or
-     *     greater than the value returned by {@link ConstantPool#size()}
+     *     greater than the value returned by
+     *     {@link ImmutableConstantPool#size()}
+     */
+    public ConstantStructure get(int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        if (entryLength(index) == 0) {
+            return new DummyStructure();
+        }
+        return ConstantStructure.createConstantStructure(Arrays.copyOfRange(bytes, offsets[index],
+                offsets[index + 1]));
+    }
+
+    /**
+     * Materializes the contents of the constant pool.
+     *
+     * @return The contents of the constant pool
      */
-    @Override
-    public void add(ConstantStructure structure) throws IndexOutOfBoundsException {
-        throw new UnsupportedOperationException();
+    public ImmutableList<ConstantStructure> getContents() {
+        ImmutableList.Builder<ConstantStructure> builder = ImmutableList.builder();
+        for (int i = 1; i <= size(); i++) {
+            builder.add(get(i));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the length in bytes of the structure at the given index.
+     *
+     * @param index The index of the structure
+     * @return The length in bytes of the structure
+     */
+    int entryLength(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Copies the raw bytes of the structures in the given range to the given
+     * buffer.
+     *
+     * @param from The index of the first structure to copy (inclusive)
+     * @param to The index of the last structure to copy (exclusive)
+     * @param buffer The buffer to copy to
+     */
+    void copyTo(int from, int to, ByteBuffer buffer) {
+        buffer.put(bytes, offsets[from], offsets[to] - offsets[from]);
+    }
+
+    private int getUshort(int index, int offset) {
+        checkIndex(index);
+        int pos = offsets[index] + offset;
+        return asUshort(bytes[pos], bytes[pos + 1]);
+    }
+
+    private void checkIndex(int index) throws IndexOutOfBoundsException {
+        if (index < 1 || index > size()) {
+            throw new IndexOutOfBoundsException("Constant pool index " + index + " out-of-bounds");
+        }
     }
 
 }
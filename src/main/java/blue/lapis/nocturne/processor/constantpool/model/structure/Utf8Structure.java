@@ -40,11 +40,7 @@ public class Utf8Structure extends ConstantStructure {
     public Utf8Structure(byte[] bytes) {
         super(bytes);
         assert bytes.length >= 3;
-        int length = ByteHelper.asUshort(bytes[1], bytes[2]);
-        assert bytes.length == length + 3;
-        byte[] strBytes = new byte[bytes.length - 3];
-        System.arraycopy(bytes, 3, strBytes, 0, strBytes.length);
-        str = new String(strBytes, StandardCharsets.UTF_8);
+        assert bytes.length == ByteHelper.asUshort(bytes[1], bytes[2]) + 3;
     }
 
     public Utf8Structure(String str) {
@@ -53,6 +49,9 @@ public class Utf8Structure extends ConstantStructure {
     }
 
     public String asString() {
+        if (str == null) { // decoded lazily
+            str = new String(getBytes(), 3, getBytes().length - 3, StandardCharsets.UTF_8);
+        }
         return str;
     }
 
@@ -25,14 +25,19 @@
 
 package blue.lapis.nocturne.processor.index;
 
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.processor.index.model.ClassIdSet;
 import blue.lapis.nocturne.processor.index.model.IndexedClass;
 import blue.lapis.nocturne.processor.index.model.IndexedMethod;
 import blue.lapis.nocturne.util.helper.HierarchyHelper;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Sets;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -48,62 +53,213 @@ public class ClassHierarchyBuilder {
     }
 
     public void buildHierarchies() {
-        buildClassHierarchies();
+        List<IndexedClass> sorted = new ArrayList<>(classes.values());
+        sorted.sort(Comparator.comparing(IndexedClass::getName));
+        IndexedClass.register(sorted);
+
+        ClassIdSet[] classHierarchies = buildClassHierarchies(sorted);
+        for (IndexedClass clazz : sorted) {
+            clazz.finalizeHierarchy(classHierarchies[clazz.getId()]);
+        }
         buildMethodHierarchies();
-        classes.values().forEach(c -> {
-            c.finalizeHierarchy();
-            c.getMethods().values().forEach(IndexedMethod::finalizeHierarchy);
-        });
     }
 
-    private void buildClassHierarchies() {
-        for (IndexedClass clazz : classes.values()) {
-            if (!clazz.getHierarchy().isEmpty()) {
-                Set<IndexedClass> toAdd = new HashSet<>();
-                for (IndexedClass child : clazz.getHierarchy()) {
-                    toAdd.addAll(child.getHierarchy());
+    /**
+     * Builds the class hierarchies, indexed by class ID.
+     *
+     * <p>The hierarchy of a class consists of its supertypes and subtypes
+     * within the JAR. The supertypes (ancestors) of each class are computed
+     * iteratively in topological order, so that the ancestors of a class's
+     * direct parents are always known and are reused rather than recomputed.
+     * Classes left over are part of, or inherit from, an inheritance cycle
+     * (which may only arise from malformed input); their ancestors are found
+     * by a plain traversal instead. The subtypes of each class are then
+     * derived from the ancestors of all others.</p>
+     *
+     * @param sorted The classes to build hierarchies for, ordered by ID
+     * @return The hierarchy of each class, indexed by class ID
+     */
+    private ClassIdSet[] buildClassHierarchies(List<IndexedClass> sorted) {
+        int count = sorted.size();
+        int[][] parents = new int[count][];
+        int[][] children = new int[count][];
+        int[] childCounts = new int[count];
+        for (IndexedClass clazz : sorted) {
+            parents[clazz.getId()] = getDirectParents(clazz).stream().mapToInt(IndexedClass::getId).distinct()
+                    .toArray();
+            for (int parent : parents[clazz.getId()]) {
+                childCounts[parent]++;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            children[i] = new int[childCounts[i]];
+            childCounts[i] = 0;
+        }
+        for (int i = 0; i < count; i++) {
+            for (int parent : parents[i]) {
+                children[parent][childCounts[parent]++] = i;
+            }
+        }
+
+        int[][] ancestors = new int[count][];
+        int[] marks = new int[count]; // the ID (plus one) of the class last collecting each ancestor
+        int[] pendingParents = new int[count];
+        int[] queue = new int[count];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < count; i++) {
+            pendingParents[i] = parents[i].length;
+            if (pendingParents[i] == 0) {
+                queue[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int id = queue[head++];
+            ancestors[id] = collectAncestors(id, parents, ancestors, marks);
+            for (int child : children[id]) {
+                if (--pendingParents[child] == 0) {
+                    queue[tail++] = child;
                 }
-                clazz.getHierarchy().addAll(toAdd);
-            } else {
-                Set<IndexedClass> parents = getParents(clazz);
-                clazz.getHierarchy().addAll(parents);
             }
-            clazz.getHierarchy().forEach(c -> c.getHierarchy().add(clazz));
         }
-    }
+        for (int i = 0; i < count; i++) {
+            if (ancestors[i] == null) {
+                Main.getLogger().warning("Class " + sorted.get(i).getName() + " is part of or inherits from an "
+                        + "inheritance cycle");
+                ancestors[i] = traverseAncestors(i, parents, marks);
+            }
+        }
+
+        int[] descendantCounts = new int[count];
+        for (int[] classAncestors : ancestors) {
+            for (int ancestor : classAncestors) {
+                descendantCounts[ancestor]++;
+            }
+        }
+        int[][] descendants = new int[count][];
+        for (int i = 0; i < count; i++) {
+            descendants[i] = new int[descendantCounts[i]];
+            descendantCounts[i] = 0;
+        }
+        for (int i = 0; i < count; i++) { // in ascending order, so each array ends up sorted
+            for (int ancestor : ancestors[i]) {
+                descendants[ancestor][descendantCounts[ancestor]++] = i;
+            }
+        }
 
-    private Set<IndexedClass> getParents(IndexedClass clazz) {
-        return getParents(clazz, true);
+        ClassIdSet[] hierarchies = new ClassIdSet[count];
+        for (int i = 0; i < count; i++) {
+            hierarchies[i] = ClassIdSet.ofSorted(union(ancestors[i], descendants[i], i));
+        }
+        return hierarchies;
     }
 
-    private Set<IndexedClass> getParents(IndexedClass clazz, boolean returnEmpty) {
-        Set<IndexedClass> parents = new HashSet<>();
+    private static int[] collectAncestors(int id, int[][] parents, int[][] ancestors, int[] marks) {
+        int size = 0;
+        for (int parent : parents[id]) {
+            size += ancestors[parent].length + 1;
+        }
+        int[] result = new int[size];
+        size = 0;
+        for (int parent : parents[id]) {
+            if (marks[parent] != id + 1) {
+                marks[parent] = id + 1;
+                result[size++] = parent;
+            }
+            for (int ancestor : ancestors[parent]) {
+                if (marks[ancestor] != id + 1) {
+                    marks[ancestor] = id + 1;
+                    result[size++] = ancestor;
+                }
+            }
+        }
+        result = Arrays.copyOf(result, size);
+        Arrays.sort(result);
+        return result;
+    }
 
-        Set<String> parentNames = Sets.newHashSet(clazz.getInterfaces());
-        parentNames.add(clazz.getSuperclass());
-        Set<IndexedClass> directParents = parentNames.stream().filter(classes::containsKey)
-                .map(classes::get).collect(Collectors.toSet());
-        parents.addAll(directParents);
+    private static int[] traverseAncestors(int id, int[][] parents, int[] marks) {
+        int[] stack = new int[marks.length];
+        int[] result = new int[marks.length];
+        int size = 0;
+        int top = 0;
+        stack[top++] = id;
+        marks[id] = id + 1;
+        while (top > 0) {
+            for (int parent : parents[stack[--top]]) {
+                if (marks[parent] != id + 1) {
+                    marks[parent] = id + 1;
+                    result[size++] = parent;
+                    stack[top++] = parent;
+                }
+            }
+        }
+        result = Arrays.copyOf(result, size);
+        Arrays.sort(result);
+        return result;
+    }
 
-        for (IndexedClass ic : directParents) {
-            parents.addAll(getParents(ic, false));
+    /**
+     * Merges two sorted arrays of IDs, excluding the given ID.
+     */
+    private static int[] union(int[] first, int[] second, int excluded) {
+        int[] result = new int[first.length + second.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length || j < second.length) {
+            int next;
+            if (j == second.length || i < first.length && first[i] <= second[j]) {
+                next = first[i++];
+                if (j < second.length && second[j] == next) {
+                    j++;
+                }
+            } else {
+                next = second[j++];
+            }
+            if (next != excluded) {
+                result[size++] = next;
+            }
         }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
 
-        return !parents.isEmpty() ? parents : returnEmpty ? new HashSet<>() : Sets.newHashSet(clazz);
+    private List<IndexedClass> getDirectParents(IndexedClass clazz) {
+        List<IndexedClass> parents = new ArrayList<>(clazz.getInterfaces().size() + 1);
+        IndexedClass superclass = classes.get(clazz.getSuperclass());
+        if (superclass != null) {
+            parents.add(superclass);
+        }
+        for (String iface : clazz.getInterfaces()) {
+            IndexedClass parent = classes.get(iface);
+            if (parent != null) {
+                parents.add(parent);
+            }
+        }
+        return parents;
     }
 
+    /**
+     * Builds the method hierarchies. The hierarchy of a non-private method
+     * consists of the classes in its declaring class's hierarchy which declare
+     * a method of the same signature visible to it, found by intersecting the
+     * class hierarchy with the classes declaring the signature.
+     */
     private void buildMethodHierarchies() {
         for (IndexedClass clazz : classes.values()) {
-            clazz.getMethods().values().stream()
-                    .filter(method -> method.getVisibility() != IndexedMethod.Visibility.PRIVATE)
-                    .forEach(method -> {
-                        method.getHierarchy().addAll(clazz.getHierarchy().stream()
-                                .filter(c -> c.getMethods().containsKey(method.getSignature())
-                                && HierarchyHelper.isVisible(
-                                        clazz.getName(), c.getName(),
-                                        c.getMethods().get(method.getSignature()).getVisibility()))
-                                .collect(Collectors.toSet()));
+            for (IndexedMethod method : clazz.getMethods().values()) {
+                BitSet hierarchy = new BitSet();
+                if (method.getVisibility() != IndexedMethod.Visibility.PRIVATE) {
+                    IndexedClass.getDeclaringClasses(method.getSignature()).and(clazz.getHierarchyIds()).forEach(id -> {
+                        IndexedClass c = IndexedClass.getById(id);
+                        if (id != clazz.getId() && HierarchyHelper.isVisible(clazz.getName(), c.getName(),
+                                c.getMethods().get(method.getSignature()).getVisibility())) {
+                            hierarchy.set(id);
+                        }
                     });
+                }
+                method.finalizeHierarchy(ClassIdSet.of(hierarchy));
+            }
         }
     }
 
@@ -32,20 +32,20 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import blue.lapis.nocturne.Main;
 import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.jar.model.SymbolTable;
 import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
 import blue.lapis.nocturne.processor.ClassProcessor;
 import blue.lapis.nocturne.processor.constantpool.ConstantPoolReader;
-import blue.lapis.nocturne.processor.constantpool.model.ConstantPool;
 import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
-import blue.lapis.nocturne.processor.constantpool.model.structure.ClassStructure;
-import blue.lapis.nocturne.processor.constantpool.model.structure.ConstantStructure;
-import blue.lapis.nocturne.processor.constantpool.model.structure.Utf8Structure;
+import blue.lapis.nocturne.processor.constantpool.model.structure.StructureType;
 import blue.lapis.nocturne.processor.index.model.IndexedClass;
 import blue.lapis.nocturne.processor.index.model.IndexedMethod;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -54,10 +54,12 @@ import java.util.Optional;
 public class ClassIndexer extends ClassProcessor {
 
     private final JarClassEntry jce;
+    private final SymbolTable symbols;
 
     public ClassIndexer(JarClassEntry clazz) {
         super(clazz.getName(), clazz.getContent());
         this.jce = clazz;
+        this.symbols = Main.getLoadedJar().getSymbolTable();
     }
 
     /**
@@ -90,7 +92,7 @@ public class ClassIndexer extends ClassProcessor {
             }
         }
 
-        List<String> fields = indexFields(buffer, pool);
+        Map<String, String> fields = indexFields(buffer, pool);
 
         List<IndexedMethod> methods = indexMethods(buffer, pool);
 
@@ -98,21 +100,20 @@ public class ClassIndexer extends ClassProcessor {
     }
 
     /**
-     * Skips the fields of the provided buffer, given it is positioned at their
-     * immediate start.
+     * Reads the names and descriptors of the fields of the provided buffer,
+     * given it is positioned at their immediate start.
      *
      * @param buffer The buffer to read from
      */
-    private List<String> indexFields(ByteBuffer buffer, ConstantPool pool) {
-        List<String> fields = new ArrayList<>();
+    private Map<String, String> indexFields(ByteBuffer buffer, ImmutableConstantPool pool) {
+        Map<String, String> fields = new LinkedHashMap<>();
 
         int fieldCount = buffer.getShort(); // read the field count
         for (int i = 0; i < fieldCount; i++) {
             buffer.position(buffer.position() + 2); // skip the access
             String name = getString(pool, buffer.getShort()); // get the name
-            fields.add(name);
+            fields.put(name, getString(pool, buffer.getShort())); // get the descriptor
             jce.getCurrentFieldNames().put(name, name); // index the field name for future reference
-            buffer.position(buffer.position() + 2); // skip the descriptor
             skipAttributes(buffer);
         }
 
@@ -127,14 +128,14 @@ public class ClassIndexer extends ClassProcessor {
      * @param pool The constant pool to read strings from
      * @return A {@link List} of read {@link IndexedMethod}s
      */
-    private List<IndexedMethod> indexMethods(ByteBuffer buffer, ConstantPool pool) {
+    private List<IndexedMethod> indexMethods(ByteBuffer buffer, ImmutableConstantPool pool) {
         List<IndexedMethod> methods = new ArrayList<>();
 
         int methodCount = asUshort(buffer.getShort());
         for (int i = 0; i < methodCount; i++) {
             IndexedMethod.Visibility vis = IndexedMethod.Visibility.fromAccessFlags(buffer.getShort());
             String name = getString(pool, buffer.getShort());
-            MethodDescriptor desc = MethodDescriptor.fromString(getString(pool, buffer.getShort()));
+            MethodDescriptor desc = symbols.getMethodDescriptor(getString(pool, buffer.getShort()));
             IndexedMethod.Signature sig = new IndexedMethod.Signature(name, desc);
             methods.add(new IndexedMethod(sig, vis));
             jce.getCurrentMethodNames().put(sig, sig); // index the method sig for future reference
@@ -162,17 +163,14 @@ public class ClassIndexer extends ClassProcessor {
         }
     }
 
-    private String getString(ConstantPool pool, int strIndex) {
-        assert strIndex <= pool.size();
-        ConstantStructure cs = pool.get(strIndex);
-        assert cs instanceof Utf8Structure;
-        return ((Utf8Structure) cs).asString();
+    private String getString(ImmutableConstantPool pool, int strIndex) {
+        assert pool.getType(strIndex) == StructureType.UTF_8;
+        return symbols.intern(pool.getString(strIndex));
     }
 
-    private String getClassNameFromIndex(ConstantPool pool, int index) {
-        ConstantStructure classStruct = pool.get(index);
-        checkArgument(classStruct instanceof ClassStructure, "Index does not point to class structure");
-        return getString(pool, ((ClassStructure) classStruct).getNameIndex());
+    private String getClassNameFromIndex(ImmutableConstantPool pool, int index) {
+        checkArgument(pool.getType(index) == StructureType.CLASS, "Index does not point to class structure");
+        return getString(pool, pool.getNameIndex(index));
     }
 
 }
@@ -0,0 +1,209 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.processor.index.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable, compact set of class IDs (see {@link IndexedClass#getId()}).
+ *
+ * <p>Much like the containers of a Roaring bitmap, the set is stored either as
+ * a sorted array of IDs or as a plain bitmap, whichever is smaller for its
+ * contents. Sparse sets thus cost four bytes per member, while dense sets cost
+ * one bit per possible ID.</p>
+ */
+public final class ClassIdSet {
+
+    public static final ClassIdSet EMPTY = new ClassIdSet(new int[0], null, 0);
+
+    private final int[] ids; // sorted, or null if this set is a bitmap
+    private final long[] words; // or null if this set is an array
+    private final int size;
+
+    private ClassIdSet(int[] ids, long[] words, int size) {
+        this.ids = ids;
+        this.words = words;
+        this.size = size;
+    }
+
+    /**
+     * Creates a {@link ClassIdSet} with the contents of the given
+     * {@link BitSet}.
+     *
+     * @param bits The set bits to copy
+     * @return The new {@link ClassIdSet}
+     */
+    public static ClassIdSet of(BitSet bits) {
+        int size = bits.cardinality();
+        if (size == 0) {
+            return EMPTY;
+        }
+        int wordCount = (bits.length() + 63) / 64;
+        if (size <= wordCount * 2) { // an int per member is no larger than a long per 64 possible members
+            return new ClassIdSet(bits.stream().toArray(), null, size);
+        }
+        return new ClassIdSet(null, Arrays.copyOf(bits.toLongArray(), wordCount), size);
+    }
+
+    /**
+     * Creates a {@link ClassIdSet} with the given IDs.
+     *
+     * @param ids The IDs, in strictly ascending order
+     * @return The new {@link ClassIdSet}
+     */
+    public static ClassIdSet ofSorted(int[] ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+        int wordCount = (ids[ids.length - 1] >>> 6) + 1;
+        if (ids.length <= wordCount * 2) {
+            return new ClassIdSet(ids.clone(), null, ids.length);
+        }
+        long[] words = new long[wordCount];
+        for (int id : ids) {
+            words[id >>> 6] |= 1L << id;
+        }
+        return new ClassIdSet(null, words, ids.length);
+    }
+
+    /**
+     * Returns the number of IDs in this set.
+     *
+     * @return The number of IDs in this set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether this set is empty.
+     *
+     * @return Whether this set is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns whether this set contains the given ID.
+     *
+     * @param id The ID to check
+     * @return Whether this set contains the ID
+     */
+    public boolean contains(int id) {
+        if (id < 0) {
+            return false;
+        }
+        if (words == null) {
+            return Arrays.binarySearch(ids, id) >= 0;
+        }
+        int word = id >>> 6;
+        return word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * Returns the intersection of this set with the given set.
+     *
+     * @param other The set to intersect with
+     * @return The intersection of the two sets
+     */
+    public ClassIdSet and(ClassIdSet other) {
+        if (isEmpty() || other.isEmpty()) {
+            return EMPTY;
+        }
+        BitSet result;
+        if (words != null && other.words != null) {
+            long[] anded = new long[Math.min(words.length, other.words.length)];
+            for (int i = 0; i < anded.length; i++) {
+                anded[i] = words[i] & other.words[i];
+            }
+            result = BitSet.valueOf(anded);
+        } else {
+            // probe the members of the array-backed (i.e. smaller) set
+            ClassIdSet probed = words == null ? this : other;
+            ClassIdSet target = probed == this ? other : this;
+            result = new BitSet();
+            for (int id : probed.ids) {
+                if (target.contains(id)) {
+                    result.set(id);
+                }
+            }
+        }
+        return of(result);
+    }
+
+    /**
+     * Invokes the given consumer for each ID in this set, in ascending order.
+     *
+     * @param consumer The consumer to invoke
+     */
+    public void forEach(IntConsumer consumer) {
+        PrimitiveIterator.OfInt it = iterator();
+        while (it.hasNext()) {
+            consumer.accept(it.nextInt());
+        }
+    }
+
+    /**
+     * Returns an iterator over the IDs in this set, in ascending order.
+     *
+     * @return An iterator over the IDs in this set
+     */
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index = 0; // position in the array, or the next candidate ID in the bitmap
+            private int returned = 0;
+
+            @Override
+            public boolean hasNext() {
+                return returned < size;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                returned++;
+                if (words == null) {
+                    return ids[index++];
+                }
+                long word = words[index >>> 6] & (-1L << index); // mask out the IDs already returned
+                while (word == 0) {
+                    index = ((index >>> 6) + 1) << 6;
+                    word = words[index >>> 6];
+                }
+                index = (index & ~63) + Long.numberOfTrailingZeros(word);
+                return index++;
+            }
+        };
+    }
+
+}
@@ -27,29 +27,116 @@ package blue.lapis.nocturne.processor.index.model;
 
 import static com.google.common.base.Preconditions.checkState;
 
-import com.google.common.collect.ImmutableSet;
-
-import java.util.HashSet;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
 import java.util.Set;
 
 /**
  * Represents a hierarchical structure.
+ *
+ * <p>Hierarchies are stored as {@link ClassIdSet}s. The structure itself is
+ * never considered part of its own hierarchy.</p>
  */
-public class Hierarchical<T extends Hierarchical> {
+public class Hierarchical {
 
-    private Set<T> hierarchy = new HashSet<>();
+    private ClassIdSet hierarchy = ClassIdSet.EMPTY;
     private boolean isHierarchyFinalized = false;
 
-    public Set<T> getHierarchy() {
+    /**
+     * Returns an unmodifiable view of the classes in this structure's
+     * hierarchy.
+     *
+     * @return The classes in this structure's hierarchy
+     */
+    public Set<IndexedClass> getHierarchy() {
+        return new HierarchyView();
+    }
+
+    /**
+     * Returns whether the class with the given ID is part of this structure's
+     * hierarchy.
+     *
+     * @param classId The ID of the class
+     * @return Whether the class is part of the hierarchy
+     */
+    public boolean isInHierarchy(int classId) {
+        return classId != getOwnId() && hierarchy.contains(classId);
+    }
+
+    /**
+     * Returns the IDs of the classes in this structure's hierarchy. The set
+     * may include the ID of this structure itself if it is a class.
+     *
+     * @return The IDs of the classes in this structure's hierarchy
+     */
+    public ClassIdSet getHierarchyIds() {
         return hierarchy;
     }
 
-    public void finalizeHierarchy() {
+    public void finalizeHierarchy(ClassIdSet hierarchy) {
         checkState(!isHierarchyFinalized, "Cannot finalize hierarchy more than once");
-        getHierarchy().remove(this);
-        hierarchy = ImmutableSet.copyOf(hierarchy);
+        this.hierarchy = hierarchy;
 
         isHierarchyFinalized = true;
     }
 
+    /**
+     * Returns the class ID of this structure, to be excluded from its own
+     * hierarchy.
+     *
+     * @return The class ID of this structure, or -1 if it is not a class
+     */
+    protected int getOwnId() {
+        return -1;
+    }
+
+    private class HierarchyView extends AbstractSet<IndexedClass> {
+
+        @Override
+        public int size() {
+            return hierarchy.size() - (hierarchy.contains(getOwnId()) ? 1 : 0);
+        }
+
+        @Override
+        public boolean contains(Object obj) {
+            return obj instanceof IndexedClass && isInHierarchy(((IndexedClass) obj).getId());
+        }
+
+        @Override
+        public Iterator<IndexedClass> iterator() {
+            PrimitiveIterator.OfInt ids = hierarchy.iterator();
+            return new Iterator<IndexedClass>() {
+                private int next = advance();
+
+                private int advance() {
+                    while (ids.hasNext()) {
+                        int id = ids.nextInt();
+                        if (id != getOwnId()) {
+                            return id;
+                        }
+                    }
+                    return -1;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next != -1;
+                }
+
+                @Override
+                public IndexedClass next() {
+                    if (next == -1) {
+                        throw new NoSuchElementException();
+                    }
+                    IndexedClass clazz = IndexedClass.getById(next);
+                    next = advance();
+                    return clazz;
+                }
+            };
+        }
+
+    }
+
 }
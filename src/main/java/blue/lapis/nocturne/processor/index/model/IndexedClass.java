@@ -30,38 +30,97 @@ import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * A summary of select info from a processed class file.
  */
-public class IndexedClass extends Hierarchical<IndexedClass> {
+public class IndexedClass extends Hierarchical {
 
-    public static final Map<String, IndexedClass> INDEXED_CLASSES = new HashMap<>();
+    public static final Map<String, IndexedClass> INDEXED_CLASSES = new ConcurrentHashMap<>();
 
+    private static IndexedClass[] byId = new IndexedClass[0];
+    private static Map<IndexedMethod.Signature, ClassIdSet> declaringClasses = ImmutableMap.of();
+
+    private int id = -1;
     private final String name;
     private ImmutableConstantPool constantPool;
     private final String superClass;
     private final ImmutableList<String> interfaces;
-    private final ImmutableSet<String> fields; //TODO: use full signature instead of just name
+    private final ImmutableMap<String, String> fields;
     private final ImmutableMap<IndexedMethod.Signature, IndexedMethod> methods;
 
     public IndexedClass(String name, ImmutableConstantPool constantPool, String superClass, List<String> interfaces,
-            List<String> fields, List<IndexedMethod> methods) {
+            Map<String, String> fields, List<IndexedMethod> methods) {
         this.name = name;
         this.constantPool = constantPool;
         this.superClass = superClass;
         this.interfaces = ImmutableList.copyOf(interfaces);
-        this.fields = ImmutableSet.copyOf(fields);
+        this.fields = ImmutableMap.copyOf(fields);
         this.methods = ImmutableMap.copyOf(
                 methods.stream().collect(Collectors.toMap(IndexedMethod::getSignature, m -> m))
         );
     }
 
+    /**
+     * Assigns dense IDs to the given classes, in iteration order, and indexes
+     * the classes declaring each method signature.
+     *
+     * @param classes The classes to register
+     */
+    public static void register(List<IndexedClass> classes) {
+        IndexedClass[] registry = classes.toArray(new IndexedClass[classes.size()]);
+        Map<IndexedMethod.Signature, BitSet> declarers = new HashMap<>();
+        for (int i = 0; i < registry.length; i++) {
+            registry[i].id = i;
+            for (IndexedMethod.Signature sig : registry[i].getMethods().keySet()) {
+                declarers.computeIfAbsent(sig, s -> new BitSet()).set(i);
+            }
+        }
+        byId = registry;
+        declaringClasses = ImmutableMap.copyOf(Maps.transformValues(declarers, ClassIdSet::of));
+    }
+
+    /**
+     * Returns the IDs of all classes declaring a method with the given
+     * signature.
+     *
+     * @param sig The signature of the method
+     * @return The IDs of the classes declaring the method
+     */
+    public static ClassIdSet getDeclaringClasses(IndexedMethod.Signature sig) {
+        ClassIdSet classes = declaringClasses.get(sig);
+        return classes != null ? classes : ClassIdSet.EMPTY;
+    }
+
+    /**
+     * Returns the class with the given ID.
+     *
+     * @param id The ID of the class
+     * @return The class with the given ID
+     * @throws IndexOutOfBoundsException If no class has the given ID
+     */
+    public static IndexedClass getById(int id) throws IndexOutOfBoundsException {
+        return byId[id];
+    }
+
+    /**
+     * Returns the dense ID of this class, which is unique within the loaded
+     * JAR.
+     *
+     * @return The ID of this class, or -1 if none has been assigned yet
+     */
+    public int getId() {
+        return id;
+    }
+
     public String getName() {
         return name;
     }
@@ -79,7 +138,18 @@ public class IndexedClass extends Hierarchical<IndexedClass> {
     }
 
     public ImmutableSet<String> getFields() {
-        return fields;
+        return fields.keySet();
+    }
+
+    /**
+     * Returns the descriptor of the field with the given name.
+     *
+     * @param name The name of the field
+     * @return The descriptor of the field, or {@code null} if this class
+     *     declares no field by the given name
+     */
+    public String getFieldDescriptor(String name) {
+        return fields.get(name);
     }
 
     public ImmutableMap<IndexedMethod.Signature, IndexedMethod> getMethods() {
@@ -90,4 +160,9 @@ public class IndexedClass extends Hierarchical<IndexedClass> {
         this.constantPool = null;
     }
 
+    @Override
+    protected int getOwnId() {
+        return id;
+    }
+
 }
@@ -34,7 +34,7 @@ import java.util.Objects;
 /**
  * Represents a method serialized by Nocturne's class indexer.
  */
-public class IndexedMethod extends Hierarchical<IndexedClass> {
+public class IndexedMethod extends Hierarchical {
 
     private final Signature signature;
     private final Visibility visibility;
@@ -59,10 +59,12 @@ public class IndexedMethod extends Hierarchical<IndexedClass> {
 
         private final String name;
         private final MethodDescriptor descriptor;
+        private final int hashCode;
 
         public Signature(String name, MethodDescriptor descriptor) {
             this.name = name;
             this.descriptor = descriptor;
+            this.hashCode = Objects.hash(name, descriptor);
         }
 
         public String getName() {
@@ -75,16 +77,24 @@ public class IndexedMethod extends Hierarchical<IndexedClass> {
 
         @Override
         public boolean equals(Object otherObj) {
+            if (otherObj == this) {
+                return true;
+            }
             if (!(otherObj instanceof Signature)) {
                 return false;
             }
             Signature sig = (Signature) otherObj;
-            return sig.getName().equals(getName()) && sig.getDescriptor().equals(getDescriptor());
+            if (sig.hashCode != hashCode) {
+                return false;
+            }
+            // names and descriptors from the same JAR are interned, so this usually short-circuits
+            return (sig.name == name || sig.name.equals(name))
+                    && (sig.descriptor == descriptor || sig.descriptor.equals(descriptor));
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(name, descriptor);
+            return hashCode;
         }
 
     }
@@ -26,26 +26,21 @@
 package blue.lapis.nocturne.processor.transform;
 
 import static blue.lapis.nocturne.util.Constants.CLASS_FORMAT_CONSTANT_POOL_OFFSET;
-import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_CHAR;
-import static blue.lapis.nocturne.util.Constants.Processing.CLASS_PREFIX;
+import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
 import static blue.lapis.nocturne.util.helper.ByteHelper.asUshort;
 import static blue.lapis.nocturne.util.helper.ByteHelper.getBytes;
 import static blue.lapis.nocturne.util.helper.ByteHelper.readBytes;
-import static blue.lapis.nocturne.util.helper.StringHelper.getProcessedDescriptor;
-import static blue.lapis.nocturne.util.helper.StringHelper.getProcessedName;
-import static blue.lapis.nocturne.util.helper.StringHelper.getUnprocessedName;
 
-import blue.lapis.nocturne.Main;
 import blue.lapis.nocturne.processor.ClassProcessor;
+import blue.lapis.nocturne.processor.constantpool.ConstantPoolReader;
 import blue.lapis.nocturne.processor.constantpool.model.ConstantPool;
 import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
 import blue.lapis.nocturne.processor.constantpool.model.structure.ClassStructure;
-import blue.lapis.nocturne.processor.constantpool.model.structure.ConstantStructure;
 import blue.lapis.nocturne.processor.constantpool.model.structure.FieldrefStructure;
 import blue.lapis.nocturne.processor.constantpool.model.structure.IgnoredStructure;
+import blue.lapis.nocturne.processor.constantpool.model.structure.InterfaceMethodrefStructure;
 import blue.lapis.nocturne.processor.constantpool.model.structure.MethodrefStructure;
 import blue.lapis.nocturne.processor.constantpool.model.structure.NameAndTypeStructure;
-import blue.lapis.nocturne.processor.constantpool.model.structure.RefStructure;
 import blue.lapis.nocturne.processor.constantpool.model.structure.StructureType;
 import blue.lapis.nocturne.processor.constantpool.model.structure.Utf8Structure;
 import blue.lapis.nocturne.processor.index.model.IndexedClass;
@@ -62,6 +57,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 /**
@@ -70,6 +67,7 @@ import java.util.stream.IntStream;
  */
 public class ClassTransformer extends ClassProcessor {
 
+    private final NameMapper mapper;
     private ImmutableConstantPool constantPool;
     private boolean isPoolProcessed;
     private ConstantPool processedPool;
@@ -87,11 +85,34 @@ public class ClassTransformer extends ClassProcessor {
     private static final ImmutableList<String> IGNORED_METHODS = ImmutableList.<String>builder()
             .add("<init>").add("<clinit>").build();
 
+    /**
+     * Constructs a new {@link ClassTransformer} which replaces names in the
+     * given class with processed names for display.
+     *
+     * @param className The name of the class
+     * @param bytes The bytecode of the class
+     */
     public ClassTransformer(String className, byte[] bytes) {
+        this(className, bytes, ProcessedNameMapper.INSTANCE);
+    }
+
+    /**
+     * Constructs a new {@link ClassTransformer} which replaces names in the
+     * given class as determined by the given {@link NameMapper}.
+     *
+     * @param className The name of the class
+     * @param bytes The bytecode of the class
+     * @param mapper The {@link NameMapper} providing the new names
+     */
+    public ClassTransformer(String className, byte[] bytes, NameMapper mapper) {
         super(className, bytes);
+        this.mapper = mapper;
         assert IndexedClass.INDEXED_CLASSES.containsKey(getClassName());
         constantPool = IndexedClass.INDEXED_CLASSES.get(getClassName()).getConstantPool();
-        processedPool = new ConstantPool(constantPool.getContents(), constantPool.length());
+        if (constantPool == null) { // the indexed pool is released once loading finishes
+            constantPool = new ConstantPoolReader(getClassName(), bytes).read();
+        }
+        processedPool = new ConstantPool(constantPool);
     }
 
     /**
@@ -220,20 +241,21 @@ public class ClassTransformer extends ClassProcessor {
                 (isMethod ? syntheticMethods : syntheticFields).add(getString(nameIndex));
             }
 
-            if (!isSynthetic) {
+            if (!isSynthetic || !mapper.isForDisplay()) {
                 if (!isMethod || !IGNORED_METHODS.contains(getString(nameIndex))) {
                     Map<Integer, Integer> map = isMethod ? processedMethodNameMap : processedFieldNameMap;
                     if (map.containsKey(nameIndex)) {
                         nameIndex = map.get(nameIndex);
                     } else {
-                        String procName = getProcessedName(
-                                getClassName() + CLASS_PATH_SEPARATOR_CHAR + getString(nameIndex),
-                                getString(descriptorIndex),
-                                isMethod ? MemberType.METHOD : MemberType.FIELD
+                        String procName = mapper.mapMember(
+                                isMethod ? MemberType.METHOD : MemberType.FIELD,
+                                getClassName(),
+                                getString(nameIndex),
+                                getString(descriptorIndex)
                         );
-                        Utf8Structure nameStruct = new Utf8Structure(procName);
-                        processedPool.add(nameStruct);
-                        nameIndex = processedPool.size();
+                        if (!procName.equals(getString(nameIndex))) {
+                            nameIndex = addString(procName);
+                        }
                     }
                 }
             }
@@ -243,14 +265,12 @@ public class ClassTransformer extends ClassProcessor {
             if (map.containsKey(descriptorIndex)) {
                 descriptorIndex = map.get(descriptorIndex);
             } else {
-                String procDesc = getProcessedDescriptor(
+                String procDesc = mapper.mapDescriptor(
                         isMethod ? MemberType.METHOD : MemberType.FIELD,
                         getString(descriptorIndex)
                 );
                 if (!procDesc.equals(getString(descriptorIndex))) {
-                    Utf8Structure descStruct = new Utf8Structure(procDesc);
-                    processedPool.add(descStruct);
-                    descriptorIndex = processedPool.size();
+                    descriptorIndex = addString(procDesc);
                 }
             }
             os.write(getBytes((short) descriptorIndex));
@@ -263,13 +283,60 @@ public class ClassTransformer extends ClassProcessor {
     }
 
     /**
-     * Returns any bytes remaining in the class file after the given offset.
+     * Processes the class attributes, which make up the remainder of the class
+     * file after the given offset.
      *
      * @param buffer The buffer to read
-     * @return The remainder of the class file
+     * @return The processed remainder of the class file
      */
-    public byte[] processRemainder(ByteBuffer buffer) {
-        return ByteBuffer.allocate(buffer.capacity() - buffer.position()).put(buffer).array();
+    public byte[] processRemainder(ByteBuffer buffer) throws IOException {
+        if (mapper.isForDisplay()) {
+            return ByteBuffer.allocate(buffer.capacity() - buffer.position()).put(buffer).array();
+        }
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        int attrCount = asUshort(buffer.getShort());
+        os.write(getBytes((short) attrCount));
+        for (int i = 0; i < attrCount; i++) {
+            int attrNameIndex = asUshort(buffer.getShort());
+            int attrLength = buffer.getInt();
+            os.write(getBytes((short) attrNameIndex));
+            os.write(getBytes(attrLength));
+            byte[] attr = readBytes(buffer, attrLength);
+            ByteBuffer attrBuffer = ByteBuffer.wrap(attr);
+            switch (getString(attrNameIndex)) {
+                case "Signature": {
+                    attrBuffer.putShort(0, (short) processSignature(attrBuffer.getShort(0)));
+                    break;
+                }
+                case "InnerClasses": {
+                    // each entry is inner_class_info_index, outer_class_info_index, inner_name_index, access_flags
+                    final int entryLength = 8;
+                    for (int offset = 2; offset < attr.length; offset += entryLength) {
+                        int innerNameIndex = asUshort(attrBuffer.getShort(offset + 4));
+                        if (innerNameIndex != 0) { // zero for anonymous classes
+                            attrBuffer.putShort(offset + 4, (short) processInnerClassName(
+                                    asUshort(attrBuffer.getShort(offset)), innerNameIndex));
+                        }
+                    }
+                    break;
+                }
+                case "EnclosingMethod": {
+                    int natIndex = asUshort(attrBuffer.getShort(2));
+                    if (natIndex != 0) { // zero if the class isn't enclosed by a method
+                        String owner = getOriginalClassName(asUshort(attrBuffer.getShort(0)));
+                        attrBuffer.putShort(2, (short) processNameAndType(MemberType.METHOD, owner, natIndex));
+                    }
+                    break;
+                }
+                default: {
+                    processAnnotationAttribute(getString(attrNameIndex), attrBuffer);
+                    break;
+                }
+            }
+            os.write(attr);
+        }
+        return os.toByteArray();
     }
 
     private ConstantPool getProcessedPool() {
@@ -281,26 +348,29 @@ public class ClassTransformer extends ClassProcessor {
     }
 
     private void handleMember(int index) {
-        ConstantStructure cs = processedPool.get(index);
-        if (!(cs instanceof IgnoredStructure)) {
-            if (cs.getType() == StructureType.CLASS) {
-                handleClassMember(cs, index, processedPool);
-            } else if (  cs.getType() == StructureType.FIELDREF
-                    || cs.getType() == StructureType.INTERFACE_METHODREF
-                    || cs.getType() == StructureType.METHODREF) {
-                handleNonClassMember(cs, index, processedPool);
+        StructureType type = processedPool.getType(index);
+        if (type == StructureType.CLASS) {
+            handleClassMember(index, processedPool);
+        } else if (type == StructureType.FIELDREF
+                || type == StructureType.INTERFACE_METHODREF
+                || type == StructureType.METHODREF) {
+            handleNonClassMember(type, index, processedPool);
+        } else if (!mapper.isForDisplay()) {
+            if (type == StructureType.METHOD_TYPE) {
+                handleMethodType(index, processedPool);
+            } else if (type == StructureType.INVOKE_DYNAMIC) {
+                handleInvokeDynamic(index, processedPool);
             }
         }
     }
 
-    private void handleClassMember(ConstantStructure cs, int index, ConstantPool pool) {
-        String name = getString(((ClassStructure) cs).getNameIndex());
-
-        if (!Main.getLoadedJar().getClass(name).isPresent()) {
+    private void handleClassMember(int index, ConstantPool pool) {
+        String name = getString(pool.getNameIndex(index));
+        String newName = mapper.mapClass(name);
+        if (newName.equals(name)) {
             return;
         }
 
-        String newName = getProcessedName(name, null, MemberType.CLASS);
         byte[] strBytes = newName.getBytes(StandardCharsets.UTF_8);
         ByteBuffer strBuffer = ByteBuffer.allocate(strBytes.length + 3);
         strBuffer.put(StructureType.UTF_8.getTag());
@@ -314,9 +384,9 @@ public class ClassTransformer extends ClassProcessor {
         pool.set(index, new ClassStructure(classBuffer.array()));
     }
 
-    private void handleNonClassMember(ConstantStructure cs, int index, ConstantPool pool) {
+    private void handleNonClassMember(StructureType type, int index, ConstantPool pool) {
         MemberType memberType;
-        switch (cs.getType()) {
+        switch (type) {
             case FIELDREF: {
                 memberType = MemberType.FIELD;
                 break;
@@ -330,16 +400,13 @@ public class ClassTransformer extends ClassProcessor {
                 throw new AssertionError();
             }
         }
-        String className = getClassNameFromStruct((RefStructure) cs);
-        if (className.startsWith(CLASS_PREFIX)) {
-            className = getUnprocessedName(className);
-        }
+        // the class structure may already have been replaced, so the name is read from the original pool
+        String className = getOriginalClassName(constantPool.getClassIndex(index));
 
-        NameAndType nat = getNameAndType((RefStructure) cs);
-        int natIndex = ((RefStructure) cs).getNameAndTypeIndex();
-        NameAndTypeStructure natStruct = (NameAndTypeStructure) constantPool.get(natIndex);
-        int nameIndex = natStruct.getNameIndex();
-        int typeIndex = natStruct.getTypeIndex();
+        int natIndex = pool.getNameAndTypeIndex(index);
+        NameAndType nat = getNameAndType(natIndex);
+        int nameIndex = constantPool.getNameIndex(natIndex);
+        int typeIndex = constantPool.getTypeIndex(natIndex);
 
         boolean ignored = false;
         if (IGNORED_METHODS.contains(nat.getName())) { // don't process ignored methods
@@ -348,12 +415,12 @@ public class ClassTransformer extends ClassProcessor {
 
         String desc = nat.getType();
 
-        boolean isSynthetic
-                = (memberType == MemberType.FIELD ? syntheticFields : syntheticMethods).contains(nat.getName());
+        boolean isSynthetic = mapper.isForDisplay()
+                && (memberType == MemberType.FIELD ? syntheticFields : syntheticMethods).contains(nat.getName());
 
-        if (Main.getLoadedJar().getClass(className).isPresent() && !isSynthetic && !ignored) {
-            String newName = getProcessedName(className + CLASS_PATH_SEPARATOR_CHAR + nat.getName(), desc,
-                    memberType);
+        String newName = isSynthetic || ignored ? nat.getName() : mapper.mapMember(memberType, className,
+                nat.getName(), desc);
+        if (!newName.equals(nat.getName())) {
             byte[] newNameBytes = newName.getBytes(StandardCharsets.UTF_8);
             ByteBuffer nameBuffer = ByteBuffer.allocate(newNameBytes.length + 3);
             nameBuffer.put(StructureType.UTF_8.getTag());
@@ -366,10 +433,7 @@ public class ClassTransformer extends ClassProcessor {
             nameIndex = pool.size();
         }
 
-        String processedDesc = getProcessedDescriptor(
-                cs.getType() == StructureType.FIELDREF ? MemberType.FIELD : MemberType.METHOD,
-                desc
-        );
+        String processedDesc = mapper.mapDescriptor(memberType, desc);
         if (!processedDesc.equals(desc)) {
             byte[] newTypeBytes = processedDesc.getBytes(StandardCharsets.UTF_8);
             ByteBuffer typeBuffer = ByteBuffer.allocate(newTypeBytes.length + 3);
@@ -389,14 +453,135 @@ public class ClassTransformer extends ClassProcessor {
         buffer.putShort((short) typeIndex);
         pool.add(new NameAndTypeStructure(buffer.array()));
 
-        StructureType st = memberType == MemberType.FIELD ? StructureType.FIELDREF : StructureType.METHODREF;
-        ByteBuffer mBuffer = ByteBuffer.allocate(st.getLength() + 1);
-        mBuffer.put(st.getTag());
-        mBuffer.putShort((short) ((RefStructure) cs).getClassIndex());
+        ByteBuffer mBuffer = ByteBuffer.allocate(type.getLength() + 1);
+        mBuffer.put(type.getTag());
+        mBuffer.putShort((short) pool.getClassIndex(index));
         mBuffer.putShort((short) pool.size());
-        pool.set(index, memberType == MemberType.FIELD
-                ? new FieldrefStructure(mBuffer.array())
-                : new MethodrefStructure(mBuffer.array()));
+        switch (type) {
+            case FIELDREF: {
+                pool.set(index, new FieldrefStructure(mBuffer.array()));
+                break;
+            }
+            case INTERFACE_METHODREF: {
+                pool.set(index, new InterfaceMethodrefStructure(mBuffer.array()));
+                break;
+            }
+            default: {
+                pool.set(index, new MethodrefStructure(mBuffer.array()));
+                break;
+            }
+        }
+    }
+
+    private void handleMethodType(int index, ConstantPool pool) {
+        int descIndex = constantPool.getNameIndex(index); // same offset as a class's name index
+        String desc = getString(descIndex);
+        String newDesc = mapper.mapDescriptor(MemberType.METHOD, desc);
+        if (newDesc.equals(desc)) {
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(StructureType.METHOD_TYPE.getLength() + 1);
+        buffer.put(StructureType.METHOD_TYPE.getTag());
+        buffer.putShort((short) addString(newDesc));
+        pool.set(index, new IgnoredStructure(buffer.array()));
+    }
+
+    private void handleInvokeDynamic(int index, ConstantPool pool) {
+        int natIndex = constantPool.getNameAndTypeIndex(index);
+        NameAndType nat = getNameAndType(natIndex);
+        String name = getCallSiteName(nat);
+        String desc = mapper.mapDescriptor(MemberType.METHOD, nat.getType());
+        if (name.equals(nat.getName()) && desc.equals(nat.getType())) {
+            return;
+        }
+
+        int nameIndex = name.equals(nat.getName()) ? constantPool.getNameIndex(natIndex) : addString(name);
+        int typeIndex = desc.equals(nat.getType()) ? constantPool.getTypeIndex(natIndex) : addString(desc);
+        ByteBuffer buffer = ByteBuffer.allocate(StructureType.INVOKE_DYNAMIC.getLength() + 1);
+        buffer.put(StructureType.INVOKE_DYNAMIC.getTag());
+        buffer.putShort(ByteBuffer.wrap(constantPool.get(index).getBytes()).getShort(1)); // bootstrap method index
+        buffer.putShort((short) addNameAndType(nameIndex, typeIndex));
+        pool.set(index, new IgnoredStructure(buffer.array()));
+    }
+
+    /**
+     * Remaps the name of a dynamic call site. The name is arbitrary, but
+     * lambda metafactories take it to be the name of the method being
+     * implemented, which is declared by the functional interface returned by
+     * the call site.
+     *
+     * @param nat The name and type of the call site
+     * @return The new name of the call site
+     */
+    private String getCallSiteName(NameAndType nat) {
+        String returnType = nat.getType().substring(nat.getType().indexOf(')') + 1);
+        IndexedClass iface = returnType.startsWith("L")
+                ? IndexedClass.INDEXED_CLASSES.get(returnType.substring(1, returnType.length() - 1))
+                : null;
+        if (iface == null) {
+            return nat.getName();
+        }
+        Set<String> names = iface.getMethods().keySet().stream()
+                .filter(sig -> sig.getName().equals(nat.getName()))
+                .map(sig -> mapper.mapMember(MemberType.METHOD, iface.getName(), sig.getName(),
+                        sig.getDescriptor().toString()))
+                .collect(Collectors.toSet());
+        return names.size() == 1 ? names.iterator().next() : nat.getName(); // leave ambiguous names alone
+    }
+
+    /**
+     * Remaps the name and type of a method or field given by the
+     * NameAndType structure at the given index.
+     *
+     * @param type The type of the member
+     * @param owner The name of the class declaring the member
+     * @param natIndex The index of the NameAndType structure
+     * @return The index of the remapped NameAndType structure
+     */
+    private int processNameAndType(MemberType type, String owner, int natIndex) {
+        NameAndType nat = getNameAndType(natIndex);
+        String name = IGNORED_METHODS.contains(nat.getName()) ? nat.getName()
+                : mapper.mapMember(type, owner, nat.getName(), nat.getType());
+        String desc = mapper.mapDescriptor(type, nat.getType());
+        if (name.equals(nat.getName()) && desc.equals(nat.getType())) {
+            return natIndex;
+        }
+        int nameIndex = name.equals(nat.getName()) ? constantPool.getNameIndex(natIndex) : addString(name);
+        int typeIndex = desc.equals(nat.getType()) ? constantPool.getTypeIndex(natIndex) : addString(desc);
+        return addNameAndType(nameIndex, typeIndex);
+    }
+
+    private int processSignature(int sigIndex) {
+        String sig = getString(sigIndex);
+        String newSig = mapper.mapSignature(sig);
+        return newSig.equals(sig) ? sigIndex : addString(newSig);
+    }
+
+    private int processInnerClassName(int classIndex, int innerNameIndex) {
+        String className = getOriginalClassName(classIndex);
+        String innerName = getString(innerNameIndex);
+        // only member classes are named after the part of their binary name following their outer class
+        if (!className.endsWith(INNER_CLASS_SEPARATOR_CHAR + innerName)) {
+            return innerNameIndex;
+        }
+        String newName = mapper.mapClass(className);
+        newName = newName.substring(newName.lastIndexOf(INNER_CLASS_SEPARATOR_CHAR) + 1);
+        return newName.equals(innerName) ? innerNameIndex : addString(newName);
+    }
+
+    private int addString(String str) {
+        processedPool.add(new Utf8Structure(str));
+        return processedPool.size();
+    }
+
+    private int addNameAndType(int nameIndex, int typeIndex) {
+        ByteBuffer buffer = ByteBuffer.allocate(StructureType.NAME_AND_TYPE.getLength() + 1);
+        buffer.put(StructureType.NAME_AND_TYPE.getTag());
+        buffer.putShort((short) nameIndex);
+        buffer.putShort((short) typeIndex);
+        processedPool.add(new NameAndTypeStructure(buffer.array()));
+        return processedPool.size();
     }
 
     @SuppressWarnings("fallthrough")
@@ -437,14 +622,33 @@ public class ClassTransformer extends ClassProcessor {
                     String subAttrName = getString(subAttrNameIndex);
                     int subAttrLength = buffer.getInt(); // read attribute_length
 
-                    if (subAttrName.equals("LocalVariableTable")) {
+                    if (subAttrName.equals("LocalVariableTable") && mapper.isForDisplay()) {
                         attrLength -= subAttrLength + 6;
                         readBytes(buffer, subAttrLength); // read and discard attribute body
+                    } else if (subAttrName.equals("LocalVariableTable")
+                            || subAttrName.equals("LocalVariableTypeTable")) {
+                        actualAttrCount++;
+                        subOs.write(getBytes((short) subAttrNameIndex));
+                        subOs.write(getBytes(subAttrLength));
+                        ByteBuffer table = ByteBuffer.wrap(readBytes(buffer, subAttrLength));
+                        // each entry is start_pc, length, name_index, descriptor_index (or signature_index), index
+                        final int entryLength = 10;
+                        for (int offset = 2; offset < subAttrLength; offset += entryLength) {
+                            int typeIndex = asUshort(table.getShort(offset + 6));
+                            table.putShort(offset + 6, (short) (subAttrName.equals("LocalVariableTable")
+                                    ? processDescriptor(MemberType.FIELD, typeIndex)
+                                    : processSignature(typeIndex)));
+                        }
+                        subOs.write(table.array());
                     } else {
                         actualAttrCount++;
                         subOs.write(getBytes((short) subAttrNameIndex)); // write attribute_name_index
                         subOs.write(getBytes(subAttrLength)); // write attribute_length
-                        subOs.write(readBytes(buffer, subAttrLength)); // read and write attribute body
+                        byte[] subAttr = readBytes(buffer, subAttrLength); // read attribute body
+                        if (!mapper.isForDisplay()) {
+                            processAnnotationAttribute(subAttrName, ByteBuffer.wrap(subAttr));
+                        }
+                        subOs.write(subAttr); // write attribute body
                     }
                 }
 
@@ -456,12 +660,22 @@ public class ClassTransformer extends ClassProcessor {
 
                 break;
             }
+            case "Signature": {
+                os.write(getBytes(attrLength));
+                int sigIndex = asUshort(buffer.getShort());
+                os.write(getBytes((short) (mapper.isForDisplay() ? sigIndex : processSignature(sigIndex))));
+                break;
+            }
             case "Synthetic": {
                 isSynthetic = true;
             }
             default: {
                 os.write(getBytes(attrLength));
-                os.write(readBytes(buffer, attrLength));
+                byte[] attr = readBytes(buffer, attrLength);
+                if (!mapper.isForDisplay()) {
+                    processAnnotationAttribute(attrName, ByteBuffer.wrap(attr));
+                }
+                os.write(attr);
                 break;
             }
         }
@@ -469,31 +683,202 @@ public class ClassTransformer extends ClassProcessor {
         return new Pair<>(os.toByteArray(), isSynthetic);
     }
 
-    private NameAndType getNameAndType(RefStructure rs) {
-        int natStructIndex = rs.getNameAndTypeIndex();
-        assert natStructIndex <= constantPool.size();
+    /**
+     * Remaps the types and names referenced by the given attribute in place,
+     * if it holds annotations. Every reference is a constant pool index, so
+     * the length of the attribute doesn't change.
+     *
+     * @param attrName The name of the attribute
+     * @param attr The body of the attribute
+     */
+    @SuppressWarnings("fallthrough")
+    private void processAnnotationAttribute(String attrName, ByteBuffer attr) {
+        switch (attrName) {
+            case "RuntimeVisibleAnnotations": // fall through
+            case "RuntimeInvisibleAnnotations": {
+                processAnnotations(attr, false);
+                break;
+            }
+            case "RuntimeVisibleParameterAnnotations": // fall through
+            case "RuntimeInvisibleParameterAnnotations": {
+                int paramCount = attr.get() & 0xFF;
+                for (int i = 0; i < paramCount; i++) {
+                    processAnnotations(attr, false);
+                }
+                break;
+            }
+            case "RuntimeVisibleTypeAnnotations": // fall through
+            case "RuntimeInvisibleTypeAnnotations": {
+                processAnnotations(attr, true);
+                break;
+            }
+            case "AnnotationDefault": {
+                processElementValue(attr);
+                break;
+            }
+            default: {
+                break;
+            }
+        }
+    }
+
+    private void processAnnotations(ByteBuffer buffer, boolean typeAnnotations) {
+        int count = asUshort(buffer.getShort());
+        for (int i = 0; i < count; i++) {
+            if (typeAnnotations) {
+                skipTypeAnnotationTarget(buffer);
+            }
+            processAnnotation(buffer);
+        }
+    }
+
+    private void processAnnotation(ByteBuffer buffer) {
+        int typeIndex = asUshort(buffer.getShort());
+        String type = getString(typeIndex);
+        buffer.putShort(buffer.position() - 2, (short) processDescriptor(MemberType.FIELD, typeIndex));
+
+        int pairCount = asUshort(buffer.getShort());
+        for (int i = 0; i < pairCount; i++) {
+            int nameIndex = asUshort(buffer.getShort());
+            buffer.putShort(buffer.position() - 2, (short) processElementName(type, nameIndex));
+            processElementValue(buffer);
+        }
+    }
+
+    private void processElementValue(ByteBuffer buffer) {
+        char tag = (char) buffer.get();
+        switch (tag) {
+            case 'e': {
+                int typeIndex = asUshort(buffer.getShort());
+                String type = getString(typeIndex);
+                buffer.putShort(buffer.position() - 2, (short) processDescriptor(MemberType.FIELD, typeIndex));
+                int nameIndex = asUshort(buffer.getShort());
+                if (type.startsWith("L")) {
+                    String name = getString(nameIndex);
+                    // enum constants are fields of the enum
+                    String newName = mapper.mapMember(MemberType.FIELD, type.substring(1, type.length() - 1),
+                            name, type);
+                    if (!newName.equals(name)) {
+                        buffer.putShort(buffer.position() - 2, (short) addString(newName));
+                    }
+                }
+                break;
+            }
+            case 'c': {
+                int classIndex = asUshort(buffer.getShort()); // a return descriptor, so possibly V
+                buffer.putShort(buffer.position() - 2, (short) processDescriptor(MemberType.FIELD, classIndex));
+                break;
+            }
+            case '@': {
+                processAnnotation(buffer);
+                break;
+            }
+            case '[': {
+                int count = asUshort(buffer.getShort());
+                for (int i = 0; i < count; i++) {
+                    processElementValue(buffer);
+                }
+                break;
+            }
+            default: {
+                buffer.getShort(); // const_value_index
+                break;
+            }
+        }
+    }
 
-        ConstantStructure natStruct = constantPool.get(natStructIndex);
-        assert natStruct instanceof NameAndTypeStructure;
+    /**
+     * Remaps the name of an annotation element, which is the name of the
+     * method of the annotation interface declaring it.
+     *
+     * @param annotationType The descriptor of the annotation interface
+     * @param nameIndex The index of the name of the element
+     * @return The index of the remapped name
+     */
+    private int processElementName(String annotationType, int nameIndex) {
+        IndexedClass annotation = annotationType.startsWith("L")
+                ? IndexedClass.INDEXED_CLASSES.get(annotationType.substring(1, annotationType.length() - 1))
+                : null;
+        if (annotation == null) {
+            return nameIndex;
+        }
+        String name = getString(nameIndex);
+        return annotation.getMethods().keySet().stream()
+                .filter(sig -> sig.getName().equals(name) && sig.getDescriptor().toString().startsWith("()"))
+                .findFirst()
+                .map(sig -> mapper.mapMember(MemberType.METHOD, annotation.getName(), name,
+                        sig.getDescriptor().toString()))
+                .filter(newName -> !newName.equals(name))
+                .map(this::addString)
+                .orElse(nameIndex);
+    }
 
-        int nameIndex = ((NameAndTypeStructure) natStruct).getNameIndex();
-        int typeIndex = ((NameAndTypeStructure) natStruct).getTypeIndex();
+    /**
+     * Skips the target_info and type_path structures of a type annotation,
+     * leaving the buffer at the annotation itself.
+     *
+     * @param buffer The buffer to read from
+     */
+    private static void skipTypeAnnotationTarget(ByteBuffer buffer) {
+        int targetType = buffer.get() & 0xFF;
+        int targetLength;
+        switch (targetType) {
+            case 0x13: // field
+            case 0x14: // method return type
+            case 0x15: { // method receiver type
+                targetLength = 0;
+                break;
+            }
+            case 0x00: // class type parameter
+            case 0x01: // method type parameter
+            case 0x16: { // formal parameter
+                targetLength = 1;
+                break;
+            }
+            case 0x40: // local variable
+            case 0x41: { // resource variable
+                // each entry of the table is start_pc, length, index
+                targetLength = 2 + asUshort(buffer.getShort(buffer.position())) * 6;
+                break;
+            }
+            case 0x47: // cast
+            case 0x48: // constructor invocation type argument
+            case 0x49: // method invocation type argument
+            case 0x4A: // constructor reference type argument
+            case 0x4B: { // method reference type argument
+                targetLength = 3;
+                break;
+            }
+            default: { // supertypes, type parameter bounds, throws clauses, catch clauses and other offsets
+                targetLength = 2;
+                break;
+            }
+        }
+        buffer.position(buffer.position() + targetLength);
+        int pathLength = buffer.get() & 0xFF;
+        buffer.position(buffer.position() + pathLength * 2);
+    }
 
-        return new NameAndType(getString(nameIndex), getString(typeIndex));
+    private NameAndType getNameAndType(int natIndex) {
+        assert constantPool.getType(natIndex) == StructureType.NAME_AND_TYPE;
+        return new NameAndType(getString(constantPool.getNameIndex(natIndex)),
+                getString(constantPool.getTypeIndex(natIndex)));
     }
 
     private String getString(int strIndex) {
-        assert strIndex <= processedPool.size();
-        ConstantStructure cs = processedPool.get(strIndex);
-        assert cs instanceof Utf8Structure;
-        return ((Utf8Structure) cs).asString();
+        assert processedPool.getType(strIndex) == StructureType.UTF_8;
+        return processedPool.getString(strIndex);
+    }
+
+    private String getOriginalClassName(int classIndex) {
+        assert constantPool.getType(classIndex) == StructureType.CLASS;
+        return constantPool.getString(constantPool.getNameIndex(classIndex));
     }
 
-    private String getClassNameFromStruct(RefStructure rs) {
-        int classIndex = rs.getClassIndex();
-        ConstantStructure classStruct = processedPool.get(classIndex);
-        assert classStruct instanceof ClassStructure;
-        return getString(((ClassStructure) classStruct).getNameIndex());
+    private int processDescriptor(MemberType type, int descIndex) {
+        String desc = getString(descIndex);
+        String newDesc = mapper.mapDescriptor(type, desc);
+        return newDesc.equals(desc) ? descIndex : addString(newDesc);
     }
 
     private class NameAndType {
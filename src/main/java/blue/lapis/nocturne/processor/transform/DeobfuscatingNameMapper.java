@@ -0,0 +1,350 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.processor.transform;
+
+import static blue.lapis.nocturne.processor.index.model.IndexedClass.INDEXED_CLASSES;
+import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
+
+import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.mapping.model.Mapping;
+import blue.lapis.nocturne.processor.index.model.IndexedClass;
+import blue.lapis.nocturne.processor.index.model.IndexedMethod;
+import blue.lapis.nocturne.util.MemberType;
+import blue.lapis.nocturne.util.helper.MappingsHelper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Replaces the names of classes and members with their deobfuscated names as
+ * given by a {@link MappingContext}, such that the transformed classes can be
+ * loaded by the JVM.
+ *
+ * <p>References to members which are not declared by their owning class are
+ * resolved through the class hierarchy of the loaded JAR.</p>
+ */
+public class DeobfuscatingNameMapper implements NameMapper {
+
+    private final MappingContext context;
+
+    public DeobfuscatingNameMapper(MappingContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public String mapClass(String name) {
+        if (name.charAt(0) == '[') {
+            return mapDescriptor(MemberType.FIELD, name);
+        }
+        return ClassMapping.deobfuscate(context, name);
+    }
+
+    @Override
+    public String mapMember(MemberType type, String owner, String name, String descriptor) {
+        if (type == MemberType.FIELD) {
+            Optional<String> mapped = getMappedName(owner, MemberType.FIELD, name);
+            if (!mapped.isPresent()) {
+                String declaring = getFieldDeclaration(owner, name);
+                if (declaring != null) {
+                    mapped = getMappedName(declaring, MemberType.FIELD, name);
+                }
+            }
+            return mapped.orElse(name);
+        }
+
+        String key = name + descriptor;
+        Optional<String> mapped = getMappedName(owner, MemberType.METHOD, key);
+        if (!mapped.isPresent()) {
+            String declaring = getMethodDeclaration(owner,
+                    new IndexedMethod.Signature(name, MethodDescriptor.fromString(descriptor)));
+            if (declaring != null) {
+                mapped = getMappedName(declaring, MemberType.METHOD, key);
+            }
+        }
+        return mapped.orElse(name);
+    }
+
+    @Override
+    public String mapDescriptor(MemberType type, String descriptor) {
+        StringBuilder sb = new StringBuilder(descriptor.length());
+        int i = 0;
+        while (i < descriptor.length()) {
+            char c = descriptor.charAt(i);
+            if (c == 'L') {
+                int end = descriptor.indexOf(';', i);
+                sb.append('L').append(mapClass(descriptor.substring(i + 1, end))).append(';');
+                i = end + 1;
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String mapSignature(String signature) {
+        return new SignatureRemapper(signature).remap();
+    }
+
+    @Override
+    public boolean isForDisplay() {
+        return false;
+    }
+
+    private Optional<String> getMappedName(String className, MemberType type, String key) {
+        return MappingsHelper.getClassMapping(context, className)
+                .map(mapping -> type == MemberType.FIELD
+                        ? mapping.getFieldMappings().get(key)
+                        : mapping.getMethodMappings().get(key))
+                .map(Mapping::getDeobfuscatedName);
+    }
+
+    /**
+     * Resolves the class declaring the given field in the same order as the
+     * JVM: the class itself, then its superinterfaces, then its superclass.
+     *
+     * @param className The class the field is referenced through
+     * @param name The name of the field
+     * @return The class declaring the field, or {@code null} if it is not
+     *     declared within the loaded JAR
+     */
+    private static String getFieldDeclaration(String className, String name) {
+        IndexedClass clazz = INDEXED_CLASSES.get(className);
+        if (clazz == null) {
+            return null;
+        }
+        if (clazz.getFields().contains(name)) {
+            return className;
+        }
+        for (String iface : clazz.getInterfaces()) {
+            String declaring = getFieldDeclaration(iface, name);
+            if (declaring != null) {
+                return declaring;
+            }
+        }
+        return clazz.getSuperclass() != null ? getFieldDeclaration(clazz.getSuperclass(), name) : null;
+    }
+
+    /**
+     * Resolves the class declaring the given method in the same order as the
+     * JVM: the class itself, then its superclasses, then the maximally
+     * specific superinterface declaring the method.
+     *
+     * @param className The class the method is referenced through
+     * @param sig The signature of the method
+     * @return The class declaring the method, or {@code null} if it is not
+     *     declared within the loaded JAR
+     */
+    private static String getMethodDeclaration(String className, IndexedMethod.Signature sig) {
+        List<IndexedClass> classes = new ArrayList<>();
+        for (IndexedClass clazz = INDEXED_CLASSES.get(className); clazz != null;
+                clazz = clazz.getSuperclass() != null ? INDEXED_CLASSES.get(clazz.getSuperclass()) : null) {
+            if (clazz.getMethods().containsKey(sig)) {
+                return clazz.getName();
+            }
+            classes.add(clazz);
+        }
+
+        Set<String> visited = new HashSet<>();
+        List<String> candidates = new ArrayList<>();
+        for (IndexedClass clazz : classes) {
+            for (String iface : clazz.getInterfaces()) {
+                collectInterfaceDeclarations(iface, sig, visited, candidates);
+            }
+        }
+        for (String candidate : candidates) {
+            // prefer a declaration which no other candidate overrides
+            if (candidates.stream().noneMatch(other -> !other.equals(candidate)
+                    && getSuperinterfaces(other).contains(candidate))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static void collectInterfaceDeclarations(String iface, IndexedMethod.Signature sig, Set<String> visited,
+            List<String> declarations) {
+        IndexedClass clazz = INDEXED_CLASSES.get(iface);
+        if (clazz == null || !visited.add(iface)) {
+            return;
+        }
+        IndexedMethod method = clazz.getMethods().get(sig);
+        if (method != null && method.getVisibility() != IndexedMethod.Visibility.PRIVATE) {
+            declarations.add(iface);
+        }
+        for (String superIface : clazz.getInterfaces()) {
+            collectInterfaceDeclarations(superIface, sig, visited, declarations);
+        }
+    }
+
+    private static Set<String> getSuperinterfaces(String iface) {
+        Set<String> supers = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(iface);
+        while (!queue.isEmpty()) {
+            IndexedClass clazz = INDEXED_CLASSES.get(queue.poll());
+            if (clazz != null) {
+                clazz.getInterfaces().stream().filter(supers::add).forEach(queue::add);
+            }
+        }
+        return supers;
+    }
+
+    /**
+     * Rewrites the class names in a single generic signature, as defined by
+     * section 4.7.9.1 of the JVM specification.
+     */
+    private class SignatureRemapper {
+
+        private final String sig;
+        private final StringBuilder out;
+        private int pos;
+
+        SignatureRemapper(String sig) {
+            this.sig = sig;
+            this.out = new StringBuilder(sig.length());
+        }
+
+        String remap() {
+            if (sig.startsWith("<")) {
+                formalTypeParameters();
+            }
+            while (pos < sig.length()) {
+                char c = sig.charAt(pos);
+                if (c == '(' || c == ')' || c == '^') {
+                    out.append(c);
+                    pos++;
+                } else {
+                    typeSignature();
+                }
+            }
+            return out.toString();
+        }
+
+        private void formalTypeParameters() {
+            out.append('<');
+            pos++;
+            while (sig.charAt(pos) != '>') {
+                int colon = sig.indexOf(':', pos);
+                out.append(sig, pos, colon); // identifiers may contain any letter, so they're copied as a whole
+                pos = colon;
+                while (sig.charAt(pos) == ':') {
+                    out.append(':');
+                    pos++;
+                    if (sig.charAt(pos) != ':') { // the class bound may be empty
+                        typeSignature();
+                    }
+                }
+            }
+            out.append('>');
+            pos++;
+        }
+
+        private void typeSignature() {
+            char c = sig.charAt(pos);
+            switch (c) {
+                case 'L': {
+                    classTypeSignature();
+                    break;
+                }
+                case 'T': {
+                    int end = sig.indexOf(';', pos) + 1;
+                    out.append(sig, pos, end);
+                    pos = end;
+                    break;
+                }
+                case '[': {
+                    out.append(c);
+                    pos++;
+                    typeSignature();
+                    break;
+                }
+                default: {
+                    out.append(c); // base type
+                    pos++;
+                    break;
+                }
+            }
+        }
+
+        private void classTypeSignature() {
+            out.append('L');
+            pos++;
+            String name = identifier();
+            out.append(mapClass(name));
+            while (true) {
+                char c = sig.charAt(pos);
+                if (c == '<') {
+                    typeArguments();
+                } else if (c == '.') {
+                    pos++;
+                    name += INNER_CLASS_SEPARATOR_CHAR + identifier();
+                    String mapped = mapClass(name);
+                    out.append('.').append(mapped.substring(mapped.lastIndexOf(INNER_CLASS_SEPARATOR_CHAR) + 1));
+                } else {
+                    out.append(';');
+                    pos++;
+                    return;
+                }
+            }
+        }
+
+        private void typeArguments() {
+            out.append('<');
+            pos++;
+            while (sig.charAt(pos) != '>') {
+                char c = sig.charAt(pos);
+                if (c == '*' || c == '+' || c == '-') {
+                    out.append(c);
+                    pos++;
+                }
+                if (c != '*') {
+                    typeSignature();
+                }
+            }
+            out.append('>');
+            pos++;
+        }
+
+        private String identifier() {
+            int start = pos;
+            while ("<.;".indexOf(sig.charAt(pos)) == -1) {
+                pos++;
+            }
+            return sig.substring(start, pos);
+        }
+
+    }
+
+}
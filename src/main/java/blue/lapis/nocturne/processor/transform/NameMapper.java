@@ -0,0 +1,87 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.processor.transform;
+
+import blue.lapis.nocturne.util.MemberType;
+
+/**
+ * Determines the names written by a {@link ClassTransformer} in place of the
+ * original names of classes and members.
+ */
+public interface NameMapper {
+
+    /**
+     * Returns the name to write in place of the given internal class name.
+     *
+     * @param name The internal name of the class, or the descriptor of an
+     *     array class
+     * @return The new name, or the given name if it is not to be changed
+     */
+    String mapClass(String name);
+
+    /**
+     * Returns the name to write in place of the given field or method name.
+     *
+     * @param type The type of the member
+     * @param owner The internal name of the class referencing or declaring
+     *     the member
+     * @param name The name of the member
+     * @param descriptor The original descriptor of the member
+     * @return The new name, or the given name if it is not to be changed
+     */
+    String mapMember(MemberType type, String owner, String name, String descriptor);
+
+    /**
+     * Returns the descriptor to write in place of the given field or method
+     * descriptor.
+     *
+     * @param type The type of the member the descriptor belongs to
+     * @param descriptor The original descriptor
+     * @return The new descriptor, or the given descriptor if it is not to be
+     *     changed
+     */
+    String mapDescriptor(MemberType type, String descriptor);
+
+    /**
+     * Returns the generic signature to write in place of the given one.
+     *
+     * @param signature The original signature
+     * @return The new signature, or the given signature if it is not to be
+     *     changed
+     */
+    String mapSignature(String signature);
+
+    /**
+     * Returns whether the transformed class is only meant to be decompiled for
+     * display. If so, synthetic members are left untouched, local variable
+     * tables are discarded, and generic signatures, inner class names and
+     * dynamic call sites are not remapped.
+     *
+     * @return Whether the output is only meant for display
+     */
+    boolean isForDisplay();
+
+}
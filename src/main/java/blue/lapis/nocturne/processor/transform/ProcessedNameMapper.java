@@ -0,0 +1,73 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.processor.transform;
+
+import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_CHAR;
+import static blue.lapis.nocturne.util.helper.StringHelper.getProcessedDescriptor;
+import static blue.lapis.nocturne.util.helper.StringHelper.getProcessedName;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.util.MemberType;
+
+/**
+ * Replaces the names of classes and members present in the loaded JAR with
+ * processed names, which are recognized in the decompiled source.
+ */
+final class ProcessedNameMapper implements NameMapper {
+
+    static final ProcessedNameMapper INSTANCE = new ProcessedNameMapper();
+
+    private ProcessedNameMapper() {
+    }
+
+    @Override
+    public String mapClass(String name) {
+        return Main.getLoadedJar().getClass(name).isPresent() ? getProcessedName(name, null, MemberType.CLASS) : name;
+    }
+
+    @Override
+    public String mapMember(MemberType type, String owner, String name, String descriptor) {
+        return Main.getLoadedJar().getClass(owner).isPresent()
+                ? getProcessedName(owner + CLASS_PATH_SEPARATOR_CHAR + name, descriptor, type)
+                : name;
+    }
+
+    @Override
+    public String mapDescriptor(MemberType type, String descriptor) {
+        return getProcessedDescriptor(type, descriptor);
+    }
+
+    @Override
+    public String mapSignature(String signature) {
+        return signature;
+    }
+
+    @Override
+    public boolean isForDisplay() {
+        return true;
+    }
+
+}
@@ -38,6 +38,7 @@ import java.util.regex.Pattern;
 public final class Constants {
 
     public static final String VERSION;
+    public static final String UNKNOWN_VERSION = "UNKNOWN";
 
     public static final char INNER_CLASS_SEPARATOR_CHAR = '$';
     public static final Pattern INNER_CLASS_SEPARATOR_PATTERN
@@ -61,13 +62,30 @@ public final class Constants {
     // side-note: I'm really proud of this thing. I wrote it in like 2 minutes and it works exactly how I want it to.
     public static final Pattern TYPE_SEQUENCE_REGEX = Pattern.compile("(\\[*(?:(?:L.+?;)|.))");
 
+    /**
+     * The maximum total size in bytes of processed class content retained in
+     * memory at once.
+     */
+    public static final long PROCESSED_CLASS_CACHE_WEIGHT = 32L * 1024 * 1024;
+
+    /**
+     * The maximum total number of characters of decompiled source retained in
+     * memory at once.
+     */
+    public static final long DECOMPILE_CACHE_WEIGHT = 16L * 1024 * 1024;
+
+    /**
+     * The maximum total size in bytes of decompiled source persisted to disk.
+     */
+    public static final long DECOMPILE_DISK_CACHE_SIZE = 64L * 1024 * 1024;
+
     public static final ImmutableMap<String, Object> FF_OPTIONS = ImmutableMap.<String, Object>builder()
             .put("rsy", "1") // hide synthetic class members
             .put("ind", "    ") // set indentation string
             .build();
 
     static {
-        VERSION = MoreObjects.firstNonNull(Main.class.getPackage().getImplementationVersion(), "UNKNOWN");
+        VERSION = MoreObjects.firstNonNull(Main.class.getPackage().getImplementationVersion(), UNKNOWN_VERSION);
     }
 
     private Constants() {
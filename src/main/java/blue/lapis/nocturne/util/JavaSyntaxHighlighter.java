@@ -25,15 +25,20 @@
 
 package blue.lapis.nocturne.util;
 
-import blue.lapis.nocturne.gui.scene.text.SelectableMember;
+import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_CHAR;
+import static blue.lapis.nocturne.util.Constants.Processing.CLASS_PREFIX;
+import static blue.lapis.nocturne.util.Constants.Processing.CLASS_SUFFIX;
+import static blue.lapis.nocturne.util.Constants.Processing.DELIMITER;
+import static blue.lapis.nocturne.util.Constants.Processing.MEMBER_PREFIX;
+import static blue.lapis.nocturne.util.Constants.Processing.MEMBER_SUFFIX;
 
-import javafx.scene.Node;
-import javafx.scene.text.Text;
+import blue.lapis.nocturne.gui.scene.text.CodeSpan;
+
+import com.google.common.collect.ImmutableSet;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 /**
  * Static utility class for handling syntax highlighting of Java code.
@@ -43,7 +48,7 @@ public final class JavaSyntaxHighlighter {
     private JavaSyntaxHighlighter() {
     }
 
-    private static final String[] KEYWORDS = new String[] {
+    private static final Set<String> KEYWORDS = ImmutableSet.of(
             "abstract", "assert", "boolean", "break", "byte",
             "case", "catch", "char", "class", "const",
             "continue", "default", "do", "double", "else",
@@ -55,69 +60,229 @@ public final class JavaSyntaxHighlighter {
             "strictfp", "super", "switch", "synchronized", "this",
             "throw", "throws", "transient", "true", "try",
             "void", "volatile", "while"
-    };
-
-    private static final String KEYWORD_PATTERN = "\\b(" + String.join("|", KEYWORDS) + ")\\b";
-    private static final String SEMICOLON_PATTERN = ";";
-    private static final String STRING_PATTERN = "(\"(?:[^\"\\\\]|\\\\.)*\"|'(?:[^'\\\\]|\\\\.)')";
-    private static final String NUMBER_PATTERN = "[^\\w]((?:\\d+(?:\\.\\d+)?)+[DdFfLl]?)";
-
-    private static final String[] PATTERN_NAMES = {"KEYWORD", "SEMICOLON", "STRING", "NUMBER"};
-
-    private static final Pattern PATTERN = Pattern.compile(
-            "(?<KEYWORD>" + KEYWORD_PATTERN + ")"
-                    + "|(?<SEMICOLON>" + SEMICOLON_PATTERN + ")"
-                    + "|(?<STRING>" + STRING_PATTERN + ")"
-                    + "|(?<NUMBER>" + NUMBER_PATTERN + ")"
     );
 
+    private static final int MAX_KEYWORD_LENGTH = 12;
+
     /**
-     * Applies syntax highlighting to the given {@link Node} list.
+     * Splits the given processed source code into lines of
+     * {@link CodeSpan}s, recognizing processed class and member names along
+     * with keywords, semicolons, string and character literals and numbers.
      *
-     * <p><em>Note: This method is atomic. As such, if an exception occurs while
-     * processing the nodes, the list will remain unmodified.</em></p>
+     * <p>The code is scanned once from start to end; consecutive
+     * unhighlighted characters are gathered into a single span.</p>
      *
-     * @param nodes The {@link Node} list to apply highlighting to
+     * @param code The code to highlight
+     * @return The spans of each line of the code
      */
-    public static void highlight(List<Node> nodes) {
-        List<Node> newNodes = new ArrayList<>();
-        nodes.stream()
-                .forEach(node -> {
-                    if (node.getClass() == SelectableMember.class) {
-                        newNodes.add(node);
-                        return;
+    public static List<CodeSpan[]> highlight(String code) {
+        return new Scanner(code).scan();
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static final class Scanner {
+
+        private final String code;
+        private final List<CodeSpan[]> lines = new ArrayList<>();
+        private final List<CodeSpan> line = new ArrayList<>();
+
+        // the end of the last processed name scanned
+        private int tokenEnd;
+
+        private Scanner(String code) {
+            this.code = code;
+        }
+
+        private List<CodeSpan[]> scan() {
+            final int length = code.length();
+            int plainStart = 0;
+            int memberEnd = -1;
+            int i = 0;
+            while (i < length) {
+                char c = code.charAt(i);
+                int end = -1;
+                String styleClass = null;
+                CodeSpan member = null;
+                if ((c == '&' && code.startsWith(CLASS_PREFIX, i)) || (c == '%' && code.startsWith(MEMBER_PREFIX, i))) {
+                    member = c == '&' ? scanClass(i) : scanMember(i);
+                    if (member != null) {
+                        end = tokenEnd;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    end = c == '"' ? scanString(i) : scanChar(i);
+                    styleClass = "string";
+                } else if (c == ';') {
+                    end = i + 1;
+                    styleClass = "semicolon";
+                } else if (isDigit(c) && i != memberEnd && (i == 0 || !isWordChar(code.charAt(i - 1)))) {
+                    end = scanNumber(i);
+                    styleClass = "number";
+                } else if (isWordChar(c)) {
+                    int wordEnd = i + 1;
+                    while (wordEnd < length && isWordChar(code.charAt(wordEnd))) {
+                        wordEnd++;
                     }
-                    String text = ((Text) node).getText();
-                    Matcher matcher = PATTERN.matcher(text);
-                    int lastIndex = 0;
-
-                    while (matcher.find()) {
-                        String group = null;
-                        for (String pattern : PATTERN_NAMES) {
-                            if (matcher.group(pattern) != null) {
-                                group = pattern;
-                                break;
-                            }
-                        }
-                        assert group != null;
-
-                        int start = matcher.start(group);
-                        int end = matcher.end(group);
-                        if (group.equals("NUMBER") && !Character.isDigit(matcher.group(group).charAt(0))) {
-                            //TODO: I am a horrible person
-                            start += 1;
-                        }
-                        newNodes.add(new Text(text.substring(lastIndex, start)));
-                        Text syntaxItem = new Text(text.substring(start, end));
-                        syntaxItem.getStyleClass().add("syntax");
-                        syntaxItem.getStyleClass().add(group.toLowerCase());
-                        newNodes.add(syntaxItem);
-                        lastIndex = matcher.end();
+                    if (wordEnd - i <= MAX_KEYWORD_LENGTH && c >= 'a' && c <= 'z'
+                            && KEYWORDS.contains(code.substring(i, wordEnd))) {
+                        end = wordEnd;
+                        styleClass = "keyword";
+                    } else {
+                        i = wordEnd;
+                        continue;
                     }
-                    newNodes.add(new Text(text.substring(lastIndex)));
-                });
-        nodes.clear();
-        nodes.addAll(newNodes);
+                }
+
+                if (end == -1) {
+                    i++;
+                    continue;
+                }
+
+                emit(plainStart, i, null);
+                if (member != null) {
+                    line.add(member);
+                    memberEnd = end;
+                } else {
+                    emit(i, end, styleClass);
+                }
+                plainStart = i = end;
+            }
+            emit(plainStart, length, null);
+            endLine();
+            return lines;
+        }
+
+        private CodeSpan scanClass(int start) {
+            int nameStart = start + CLASS_PREFIX.length();
+            int nameEnd = indexOnLine(CLASS_SUFFIX.charAt(0), nameStart + 1);
+            if (nameEnd == -1) {
+                return null;
+            }
+            tokenEnd = nameEnd + CLASS_SUFFIX.length();
+            return CodeSpan.member(MemberType.CLASS, code.substring(nameStart, nameEnd), null, null);
+        }
+
+        private CodeSpan scanMember(int start) {
+            int typeStart = start + MEMBER_PREFIX.length();
+            int typeEnd = indexOnLine(DELIMITER.charAt(0), typeStart + 1);
+            int nameEnd = typeEnd == -1 ? -1 : indexOnLine(DELIMITER.charAt(0), typeEnd + 2);
+            int descEnd = nameEnd == -1 ? -1 : indexOnLine(MEMBER_SUFFIX.charAt(0), nameEnd + 2);
+            if (descEnd == -1) {
+                return null;
+            }
+
+            MemberType type;
+            try {
+                type = MemberType.fromString(code.substring(typeStart, typeEnd));
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+            int offset = code.lastIndexOf(CLASS_PATH_SEPARATOR_CHAR, nameEnd);
+            if (offset <= typeEnd) {
+                return null;
+            }
+
+            tokenEnd = descEnd + MEMBER_SUFFIX.length();
+            return CodeSpan.member(type, code.substring(offset + 1, nameEnd), code.substring(nameEnd + 1, descEnd),
+                    code.substring(typeEnd + 1, offset));
+        }
+
+        private int scanString(int start) {
+            for (int i = start + 1; i < code.length(); i++) {
+                char c = code.charAt(i);
+                if (c == '"') {
+                    return i + 1;
+                } else if (c == '\n') {
+                    return -1; // decompiled string literals never span lines
+                } else if ((c == '&' || c == '%') && isProcessedNameAt(i)) {
+                    return -1; // processed names take precedence, as they did when matched first
+                } else if (c == '\\') {
+                    i++;
+                }
+            }
+            return -1;
+        }
+
+        private boolean isProcessedNameAt(int index) {
+            if (code.startsWith(CLASS_PREFIX, index)) {
+                return scanClass(index) != null;
+            }
+            return code.startsWith(MEMBER_PREFIX, index) && scanMember(index) != null;
+        }
+
+        private int scanChar(int start) {
+            int end = start + 2;
+            if (end < code.length() && code.charAt(start + 1) == '\\' && code.charAt(end) != '\n') {
+                end++;
+            } else if (end - 1 < code.length() && code.charAt(start + 1) == '\'') {
+                return -1;
+            }
+            return end < code.length() && code.charAt(end) == '\'' ? end + 1 : -1;
+        }
+
+        private int scanNumber(int start) {
+            int i = start;
+            while (i < code.length() && isDigit(code.charAt(i))) {
+                i++;
+            }
+            if (i + 1 < code.length() && code.charAt(i) == '.' && isDigit(code.charAt(i + 1))) {
+                i++;
+                while (i < code.length() && isDigit(code.charAt(i))) {
+                    i++;
+                }
+            }
+            if (i < code.length() && "DdFfLl".indexOf(code.charAt(i)) != -1) {
+                i++;
+            }
+            return i;
+        }
+
+        /**
+         * Returns the index of the given character, starting from the given
+         * index, so long as it appears before the end of the current line.
+         */
+        private int indexOnLine(char c, int from) {
+            for (int i = from; i < code.length(); i++) {
+                char current = code.charAt(i);
+                if (current == c) {
+                    return i;
+                } else if (current == '\n') {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        private void emit(int start, int end, String styleClass) {
+            int lineStart = start;
+            for (int i = start; i < end; i++) {
+                if (code.charAt(i) == '\n') {
+                    addSpan(lineStart, i > lineStart && code.charAt(i - 1) == '\r' ? i - 1 : i, styleClass);
+                    endLine();
+                    lineStart = i + 1;
+                }
+            }
+            addSpan(lineStart, end, styleClass);
+        }
+
+        private void addSpan(int start, int end, String styleClass) {
+            if (end > start) {
+                String text = code.substring(start, end);
+                line.add(styleClass != null ? CodeSpan.styled(text, styleClass) : CodeSpan.plain(text));
+            }
+        }
+
+        private void endLine() {
+            lines.add(line.toArray(new CodeSpan[line.size()]));
+            line.clear();
+        }
+
     }
 
 }
@@ -36,9 +36,7 @@ import java.nio.ByteBuffer;
 public final class ByteHelper {
 
     public static int asUshort(byte b1, byte b2) {
-        ByteBuffer buffer = ByteBuffer.allocate(Short.BYTES);
-        buffer.put(new byte[] {b1, b2});
-        return ((int) buffer.getShort(0)) & SHORT_UNSIGNER;
+        return ((b1 & 0xFF) << 8) | (b2 & 0xFF);
     }
 
     public static int asUshort(short signed) {
@@ -46,9 +44,7 @@ public final class ByteHelper {
     }
 
     public static long asUint(byte b1, byte b2, byte b3, byte b4) {
-        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
-        buffer.put(new byte[] {b1, b2, b3, b4});
-        return ((long) buffer.getInt(0)) & INT_UNSIGNER;
+        return ((long) (b1 & 0xFF) << 24) | ((b2 & 0xFF) << 16) | ((b3 & 0xFF) << 8) | (b4 & 0xFF);
     }
 
     public static long asUint(int signed) {
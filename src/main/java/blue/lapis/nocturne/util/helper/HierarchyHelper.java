@@ -32,8 +32,8 @@ import static com.google.common.base.Preconditions.checkState;
 import blue.lapis.nocturne.processor.index.model.IndexedClass;
 import blue.lapis.nocturne.processor.index.model.IndexedMethod;
 
+import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Static utility class for hierarchy-related functionality.
@@ -44,8 +44,13 @@ public final class HierarchyHelper {
         checkState(INDEXED_CLASSES.containsKey(className), "Class \"" + className + "\" is not indexed");
         IndexedClass clazz = INDEXED_CLASSES.get(className);
 
-        return clazz.getHierarchy().stream().filter(c -> c.getMethods().containsKey(sig)).map(IndexedClass::getName)
-                .collect(Collectors.toSet());
+        Set<String> classes = new HashSet<>();
+        IndexedClass.getDeclaringClasses(sig).and(clazz.getHierarchyIds()).forEach(id -> {
+            if (id != clazz.getId()) {
+                classes.add(IndexedClass.getById(id).getName());
+            }
+        });
+        return classes;
     }
 
     public static boolean isVisible(String class1, String class2, IndexedMethod.Visibility vis) {
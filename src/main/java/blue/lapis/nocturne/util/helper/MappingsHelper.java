@@ -30,12 +30,14 @@ import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_PATTERN;
 
 import blue.lapis.nocturne.Main;
 import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
+import blue.lapis.nocturne.jar.model.attribute.Type;
 import blue.lapis.nocturne.mapping.MappingContext;
 import blue.lapis.nocturne.mapping.model.ClassMapping;
 import blue.lapis.nocturne.mapping.model.FieldMapping;
 import blue.lapis.nocturne.mapping.model.InnerClassMapping;
 import blue.lapis.nocturne.mapping.model.MethodMapping;
 import blue.lapis.nocturne.mapping.model.TopLevelClassMapping;
+import blue.lapis.nocturne.processor.index.model.IndexedClass;
 
 import java.util.Optional;
 
@@ -44,7 +46,7 @@ import java.util.Optional;
  */
 public final class MappingsHelper {
 
-    public static void genClassMapping(MappingContext context, String obf, String deobf, boolean updateClassViews) {
+    public static void genClassMapping(MappingContext context, String obf, String deobf) {
         if (!Main.getLoadedJar().getClass(obf).isPresent()) {
             Main.getLogger().warning("Discovered mapping for non-existent class \"" + obf + "\" - ignoring");
             return;
@@ -65,7 +67,7 @@ public final class MappingsHelper {
             ClassMapping parent = getOrCreateClassMapping(context,
                     obf.substring(0, obf.lastIndexOf(INNER_CLASS_SEPARATOR_CHAR)));
 
-            String baseObfName = obfSplit[obfSplit.length - 1];
+            String baseObfName = internName(obfSplit[obfSplit.length - 1]);
             String baseDeobfname = deobfSplit[deobfSplit.length - 1];
             if (parent.getInnerClassMappings().containsKey(baseObfName)) {
                 parent.getInnerClassMappings().get(baseObfName).setDeobfuscatedName(baseDeobfname);
@@ -76,12 +78,17 @@ public final class MappingsHelper {
             if (context.getMappings().containsKey(obf)) {
                 context.getMappings().get(obf).setDeobfuscatedName(deobf);
             } else {
-                context.addMapping(new TopLevelClassMapping(context, obf, deobf), updateClassViews);
+                context.addMapping(new TopLevelClassMapping(context, internName(obf), deobf));
             }
         }
     }
 
     public static void genFieldMapping(MappingContext context, String owningClass, String obf, String deobf) {
+        genFieldMapping(context, owningClass, obf, deobf, null);
+    }
+
+    public static void genFieldMapping(MappingContext context, String owningClass, String obf, String deobf,
+            Type type) {
         if (!Main.getLoadedJar().getClass(owningClass).isPresent()) {
             Main.getLogger().warning("Discovered mapping for field in non-existent class \"" + owningClass
                     + "\" - ignoring");
@@ -95,7 +102,7 @@ public final class MappingsHelper {
         if (parent.getFieldMappings().containsKey(obf)) {
             parent.getFieldMappings().get(obf).setDeobfuscatedName(deobf);
         } else {
-            new FieldMapping(parent, obf, deobf, null);
+            new FieldMapping(parent, internMemberName(owningClass, obf), deobf, type);
         }
     }
 
@@ -114,29 +121,48 @@ public final class MappingsHelper {
         if (parent.getMethodMappings().containsKey(obf)) {
             parent.getMethodMappings().get(obf).setDeobfuscatedName(deobf);
         } else {
-            new MethodMapping(parent, obf, deobf, MethodDescriptor.fromString(descriptor));
+            new MethodMapping(parent, internMemberName(owningClass, obf), deobf,
+                    MethodDescriptor.fromString(descriptor));
         }
     }
 
     private static Optional<ClassMapping> getClassMapping(MappingContext context, String qualifiedName,
             boolean create) {
-        String[] arr = INNER_CLASS_SEPARATOR_PATTERN.split(qualifiedName);
+        // trailing separators are ignored, as they would be by Pattern#split
+        int length = qualifiedName.length();
+        while (length > 0 && qualifiedName.charAt(length - 1) == INNER_CLASS_SEPARATOR_CHAR) {
+            length--;
+        }
+
+        int end = qualifiedName.indexOf(INNER_CLASS_SEPARATOR_CHAR);
+        if (end == -1 || end > length) {
+            end = length;
+        }
+        String topLevel = qualifiedName.substring(0, end);
 
-        ClassMapping mapping = context.getMappings().get(arr[0]);
+        ClassMapping mapping = context.getMappings().get(topLevel);
         if (mapping == null) {
             if (create) {
-                mapping = new TopLevelClassMapping(context, arr[0], arr[0]);
-                context.addMapping((TopLevelClassMapping) mapping, false);
+                mapping = new TopLevelClassMapping(context, internName(topLevel), topLevel);
+                context.addMapping((TopLevelClassMapping) mapping);
             } else {
                 return Optional.empty();
             }
         }
 
-        for (int i = 1; i < arr.length; i++) {
-            ClassMapping child = mapping.getInnerClassMappings().get(arr[i]);
+        // walk the inner class names without going through the regex splitter
+        while (end < length) {
+            int start = end + 1;
+            end = qualifiedName.indexOf(INNER_CLASS_SEPARATOR_CHAR, start);
+            if (end == -1 || end > length) {
+                end = length;
+            }
+            String name = qualifiedName.substring(start, end);
+
+            ClassMapping child = mapping.getInnerClassMappings().get(name);
             if (child == null) {
                 if (create) {
-                    child = new InnerClassMapping(mapping, arr[i], arr[i]);
+                    child = new InnerClassMapping(mapping, internName(name), name);
                 } else {
                     return Optional.empty();
                 }
@@ -165,4 +191,34 @@ public final class MappingsHelper {
         return getClassMapping(context, qualifiedName, true).get();
     }
 
+    /**
+     * Returns the instance of the given obfuscated name shared by the symbol
+     * table of the loaded JAR. This must only be called once the name has been
+     * found in the JAR, so that names which don't exist don't grow the table.
+     *
+     * @param name The obfuscated name
+     * @return The shared instance of the name
+     */
+    public static String internName(String name) {
+        return Main.getLoadedJar().getSymbolTable().intern(name);
+    }
+
+    /**
+     * Returns the instance of the given obfuscated member name shared by the
+     * symbol table of the loaded JAR, if the given class declares a field or
+     * method of that name. Otherwise, the name is returned as is.
+     *
+     * @param owningClass The name of the class declaring the member
+     * @param name The obfuscated name of the member
+     * @return The shared instance of the name, if any
+     */
+    public static String internMemberName(String owningClass, String name) {
+        IndexedClass clazz = IndexedClass.INDEXED_CLASSES.get(owningClass);
+        if (clazz != null && (clazz.getFields().contains(name)
+                || clazz.getMethods().keySet().stream().anyMatch(sig -> sig.getName().equals(name)))) {
+            return internName(name);
+        }
+        return name;
+    }
+
 }
@@ -88,7 +88,13 @@ public final class PropertiesHelper {
         globalProperties.store(new FileOutputStream(globalPropertiesFile), description);
     }
 
-    private File getNocturneDirectory() {
+    /**
+     * Returns the directory in which Nocturne stores its global
+     * configuration and caches.
+     *
+     * @return The Nocturne directory
+     */
+    public static File getNocturneDirectory() {
         String appdata = OperatingSystem.getOs().getAppDataFolder();
         if (OperatingSystem.getOs() == OperatingSystem.LINUX) {
             return new File(appdata, ".config" + File.separator + "nocturne");
@@ -104,6 +110,7 @@ public final class PropertiesHelper {
         public static final Key LOCALE = new Key("locale", "en_US");
         public static final Key LAST_JAR_DIRECTORY = new Key("lastJarDir", "");
         public static final Key LAST_MAPPINGS_DIRECTORY = new Key("lastMappingsDir", "");
+        public static final Key PERSIST_DECOMPILE_CACHE = new Key("persistDecompileCache", "true");
 
         private final String key;
         private final String defaultValue;
@@ -30,7 +30,6 @@ import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_PATTERN;
 import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
 import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_PATTERN;
 import static blue.lapis.nocturne.util.Constants.Processing.CLASS_PREFIX;
-import static blue.lapis.nocturne.util.Constants.Processing.CLASS_REGEX;
 import static blue.lapis.nocturne.util.Constants.Processing.CLASS_SUFFIX;
 import static blue.lapis.nocturne.util.Constants.Processing.DELIMITER;
 import static blue.lapis.nocturne.util.Constants.Processing.MEMBER_PREFIX;
@@ -112,12 +111,19 @@ public final class StringHelper {
     }
 
     public static String getUnprocessedName(String processed) {
-        boolean clazz = processed.startsWith(CLASS_PREFIX);
-        Matcher matcher = (clazz ? CLASS_REGEX : MEMBER_REGEX).matcher(processed);
+        if (processed.startsWith(CLASS_PREFIX)) {
+            // equivalent to matching CLASS_REGEX, without the overhead of a matcher
+            int end = processed.indexOf(CLASS_SUFFIX, CLASS_PREFIX.length() + 1);
+            if (end == -1) {
+                throw new IllegalArgumentException("String " + processed + " is not a processed member name");
+            }
+            return processed.substring(CLASS_PREFIX.length(), end);
+        }
+        Matcher matcher = MEMBER_REGEX.matcher(processed);
         if (!matcher.find()) {
             throw new IllegalArgumentException("String " + processed + " is not a processed member name");
         }
-        return matcher.group(clazz ? 1 : 2);
+        return matcher.group(2);
     }
 
     public static String resolvePackageName(String qualifiedClassName) {
@@ -140,9 +146,20 @@ public final class StringHelper {
     }
 
     public static boolean isJavaClassIdentifier(String str) {
-        str = CLASS_PATH_SEPARATOR_PATTERN.matcher(str).replaceAll("");
-        str = INNER_CLASS_SEPARATOR_PATTERN.matcher(str).replaceAll("");
-        return isJavaIdentifier(str);
+        // equivalent to stripping all separators and checking the remainder,
+        // but without the regex replacements (this is hot when loading mappings)
+        boolean first = true;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c == CLASS_PATH_SEPARATOR_CHAR || c == INNER_CLASS_SEPARATOR_CHAR) {
+                continue;
+            }
+            if (first ? !Character.isJavaIdentifierStart(c) : !Character.isJavaIdentifierPart(c)) {
+                return false;
+            }
+            first = false;
+        }
+        return !first;
     }
 
     public static boolean isJavaIdentifier(String str) {
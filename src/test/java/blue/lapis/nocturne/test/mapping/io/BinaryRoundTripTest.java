@@ -0,0 +1,110 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.mapping.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.jar.model.attribute.Primitive;
+import blue.lapis.nocturne.jar.model.attribute.Type;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.io.reader.BinaryReader;
+import blue.lapis.nocturne.mapping.io.reader.EnigmaReader;
+import blue.lapis.nocturne.mapping.io.reader.MappingReaderType;
+import blue.lapis.nocturne.mapping.io.writer.BinaryWriter;
+import blue.lapis.nocturne.mapping.io.writer.EnigmaWriter;
+import blue.lapis.nocturne.mapping.io.writer.MappingWriterType;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Unit tests related to reading back mappings written by the
+ * {@link BinaryWriter} with the {@link BinaryReader}.
+ */
+public class BinaryRoundTripTest {
+
+    private static final String EXAMPLE = "CLASS a com/example/project/Example\n"
+            + "\tCLASS b Inner\n"
+            + "\t\tFIELD a someInnerField I\n"
+            + "\tFIELD a someField I\n"
+            + "\tMETHOD a someMethod (ILa;I)La;\n"
+            + "CLASS b\n"
+            + "\tCLASS a Inner\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void initialize() throws IOException {
+        new Main(true);
+        Main.setLoadedJar(JarLoader.loadJar("test.jar", BinaryRoundTripTest.class.getResourceAsStream("/test.jar")));
+    }
+
+    @Test
+    public void roundTripTest() throws IOException {
+        MappingContext context = new EnigmaReader(new BufferedReader(new StringReader(EXAMPLE))).read();
+        Path file = folder.newFile("example.nmap").toPath();
+        MappingWriterType.BINARY.write(context, file);
+
+        MappingContext read = MappingReaderType.BINARY.read(file);
+        assertEquals(EXAMPLE, writeEnigma(read));
+        assertEquals(new Type(Primitive.INT, 0), read.getMappings().get("a").getFieldMappings().get("a").getType());
+        assertEquals(new Type("com/example/project/Example", 0), read.getMappings().get("a").getMethodMappings()
+                .get("a(ILa;I)La;").getDeobfuscatedDescriptor().getReturnType());
+
+        // writing the mappings read back produces the same file
+        Path copy = folder.newFile("copy.nmap").toPath();
+        MappingWriterType.BINARY.write(read, copy);
+        assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(copy));
+    }
+
+    @Test
+    public void emptyTest() throws IOException {
+        Path file = folder.newFile("empty.nmap").toPath();
+        MappingWriterType.BINARY.write(new MappingContext(), file);
+        assertEquals(0, MappingReaderType.BINARY.read(file).getMappings().size());
+    }
+
+    private static String writeEnigma(MappingContext context) {
+        StringWriter out = new StringWriter();
+        new EnigmaWriter(new PrintWriter(out)).write(context);
+        return out.toString();
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.mapping.io;
+
+import static org.junit.Assert.assertEquals;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.jar.model.attribute.Primitive;
+import blue.lapis.nocturne.jar.model.attribute.Type;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.io.reader.EnigmaReader;
+import blue.lapis.nocturne.mapping.io.reader.SrgReader;
+import blue.lapis.nocturne.mapping.io.writer.EnigmaWriter;
+import blue.lapis.nocturne.mapping.io.writer.SrgWriter;
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.mapping.model.FieldMapping;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unit tests related to reading back mappings written by the
+ * {@link EnigmaWriter} with the {@link EnigmaReader}.
+ */
+public class EnigmaRoundTripTest {
+
+    private static final String EXAMPLE = "CLASS a com/example/project/Example\n"
+            + "\tCLASS b Inner\n"
+            + "\t\tFIELD a someInnerField I\n"
+            + "\tFIELD a someField I\n"
+            + "\tMETHOD a someMethod (ILa;I)La;\n"
+            + "CLASS b\n"
+            + "\tCLASS a Inner\n";
+
+    @BeforeClass
+    public static void initialize() throws IOException {
+        new Main(true);
+        Main.setLoadedJar(JarLoader.loadJar("test.jar", EnigmaRoundTripTest.class.getResourceAsStream("/test.jar")));
+    }
+
+    @Test
+    public void roundTripTest() {
+        MappingContext context = readEnigma(EXAMPLE);
+        String written = writeEnigma(context);
+        assertEquals(EXAMPLE, written);
+        assertEquals(written, writeEnigma(readEnigma(written)));
+
+        ClassMapping mapping = context.getMappings().get("a");
+        assertEquals("com/example/project/Example", mapping.getDeobfuscatedName());
+        assertEquals("com/example/project/Example$Inner",
+                mapping.getInnerClassMappings().get("b").getFullDeobfuscatedName());
+        FieldMapping field = mapping.getFieldMappings().get("a");
+        assertEquals("someField", field.getDeobfuscatedName());
+        assertEquals(new Type(Primitive.INT, 0), field.getType());
+        assertEquals("someMethod", mapping.getMethodMappings().get("a(ILa;I)La;").getDeobfuscatedName());
+        assertEquals("b$Inner", context.getMappings().get("b").getInnerClassMappings().get("a")
+                .getFullDeobfuscatedName());
+    }
+
+    @Test
+    public void srgRoundTripTest() throws IOException {
+        MappingContext context;
+        try (SrgReader reader = new SrgReader(new BufferedReader(new InputStreamReader(
+                EnigmaRoundTripTest.class.getResourceAsStream("/example.srg"), StandardCharsets.UTF_8)))) {
+            context = reader.read();
+        }
+
+        // the field types missing from SRG are taken from the loaded JAR
+        String enigma = writeEnigma(context);
+        assertEquals(EXAMPLE, enigma);
+        assertEquals(writeSrg(context), writeSrg(readEnigma(enigma)));
+    }
+
+    @Test
+    public void uselessMappingsTest() {
+        // mappings which don't change a name are dropped, along with any class left without mappings
+        String written = writeEnigma(readEnigma("CLASS a\n"
+                + "\tCLASS b b\n"
+                + "\t\tFIELD a a I\n"
+                + "\tMETHOD a someMethod (ILa;I)La;\n"
+                + "CLASS b b\n"));
+        assertEquals("CLASS a\n"
+                + "\tMETHOD a someMethod (ILa;I)La;\n", written);
+    }
+
+    private static MappingContext readEnigma(String mappings) {
+        return new EnigmaReader(new BufferedReader(new StringReader(mappings))).read();
+    }
+
+    private static String writeEnigma(MappingContext context) {
+        StringWriter out = new StringWriter();
+        new EnigmaWriter(new PrintWriter(out)).write(context);
+        return out.toString();
+    }
+
+    private static String writeSrg(MappingContext context) {
+        StringWriter out = new StringWriter();
+        new SrgWriter(new PrintWriter(out)).write(context);
+        return out.toString();
+    }
+
+}
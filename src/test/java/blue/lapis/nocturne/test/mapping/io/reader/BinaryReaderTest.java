@@ -0,0 +1,182 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.mapping.io.reader;
+
+import static blue.lapis.nocturne.mapping.io.BinaryMappingFormat.CLASS_RECORD_SIZE;
+import static blue.lapis.nocturne.mapping.io.BinaryMappingFormat.FIELD_RECORD_SIZE;
+import static blue.lapis.nocturne.mapping.io.BinaryMappingFormat.METHOD_RECORD_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.io.reader.BinaryReader;
+import blue.lapis.nocturne.mapping.io.reader.MappingReaderType;
+import blue.lapis.nocturne.mapping.io.reader.SrgReader;
+import blue.lapis.nocturne.mapping.io.writer.MappingWriterType;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Unit tests related to the {@link BinaryReader}'s handling of corrupt
+ * files.
+ */
+public class BinaryReaderTest {
+
+    private static final int STRING_COUNT_OFFSET = 2 * Integer.BYTES;
+    private static final int CLASS_COUNT_OFFSET = 3 * Integer.BYTES;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private byte[] valid;
+
+    @BeforeClass
+    public static void initialize() throws IOException {
+        new Main(true);
+        Main.setLoadedJar(JarLoader.loadJar("test.jar", BinaryReaderTest.class.getResourceAsStream("/test.jar")));
+    }
+
+    @Before
+    public void writeValidFile() throws IOException {
+        MappingContext context;
+        try (SrgReader reader = new SrgReader(new BufferedReader(new InputStreamReader(
+                BinaryReaderTest.class.getResourceAsStream("/example.srg"), StandardCharsets.UTF_8)))) {
+            context = reader.read();
+        }
+        Path file = folder.newFile("valid.nmap").toPath();
+        MappingWriterType.BINARY.write(context, file);
+        valid = Files.readAllBytes(file);
+    }
+
+    /**
+     * Asserts that reading the given file content fails with an
+     * {@link IOException} whose message starts with the given prefix.
+     */
+    private void assertCorrupt(byte[] content, String message) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content);
+        try {
+            MappingReaderType.BINARY.read(file);
+            fail("Read corrupt file");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith(message));
+        }
+    }
+
+    private byte[] withInt(int offset, int value) {
+        byte[] content = valid.clone();
+        ByteBuffer.wrap(content).putInt(offset, value);
+        return content;
+    }
+
+    private int getRecordsOffset() {
+        ByteBuffer buffer = ByteBuffer.wrap(valid);
+        return valid.length - buffer.getInt(CLASS_COUNT_OFFSET) * CLASS_RECORD_SIZE
+                - buffer.getInt(CLASS_COUNT_OFFSET + Integer.BYTES) * FIELD_RECORD_SIZE
+                - buffer.getInt(CLASS_COUNT_OFFSET + 2 * Integer.BYTES) * METHOD_RECORD_SIZE;
+    }
+
+    @Test
+    public void validTest() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, valid);
+        MappingContext context = MappingReaderType.BINARY.read(file);
+        assertEquals("com/example/project/Example", context.getMappings().get("a").getDeobfuscatedName());
+    }
+
+    @Test
+    public void emptyFileTest() throws IOException {
+        assertCorrupt(new byte[0], "Not a binary mapping file");
+    }
+
+    @Test
+    public void truncatedHeaderTest() throws IOException {
+        assertCorrupt(Arrays.copyOf(valid, 10), "Not a binary mapping file");
+    }
+
+    @Test
+    public void magicTest() throws IOException {
+        assertCorrupt(withInt(0, 0xCAFEBABE), "Not a binary mapping file");
+    }
+
+    @Test
+    public void versionTest() throws IOException {
+        assertCorrupt(withInt(Integer.BYTES, 2), "Unsupported binary mapping format version 2");
+    }
+
+    @Test
+    public void stringCountTest() throws IOException {
+        assertCorrupt(withInt(STRING_COUNT_OFFSET, Integer.MAX_VALUE), "Malformed binary mapping file");
+        assertCorrupt(withInt(STRING_COUNT_OFFSET, -1), "Malformed binary mapping file");
+    }
+
+    @Test
+    public void recordCountTest() throws IOException {
+        assertCorrupt(withInt(CLASS_COUNT_OFFSET, 1000), "Malformed binary mapping file");
+    }
+
+    @Test
+    public void truncatedRecordsTest() throws IOException {
+        assertCorrupt(Arrays.copyOf(valid, valid.length - 1), "Malformed binary mapping file");
+    }
+
+    @Test
+    public void stringIndexTest() throws IOException {
+        // the descriptor of the last method record
+        assertCorrupt(withInt(valid.length - Integer.BYTES, 1000), "Malformed binary mapping file");
+    }
+
+    @Test
+    public void classOrderTest() throws IOException {
+        // the parent of the first class record
+        assertCorrupt(withInt(getRecordsOffset(), 1), "Malformed binary mapping file");
+    }
+
+    @Test
+    public void descriptorTest() throws IOException {
+        // point the descriptor of the last method record at its name
+        int offset = valid.length - Integer.BYTES;
+        int name = ByteBuffer.wrap(valid).getInt(offset - 2 * Integer.BYTES);
+        assertCorrupt(withInt(offset, name), "Malformed binary mapping file");
+    }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.mapping.io.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.io.reader.EnigmaReader;
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Unit tests related to the {@link EnigmaReader}'s handling of malformed
+ * lines.
+ */
+public class EnigmaReaderTest {
+
+    // the mappings following the malformed line in most tests
+    private static final String REST = "CLASS a com/example/project/Example\n"
+            + "\tMETHOD a someMethod (ILa;I)La;\n";
+
+    private final List<String> warnings = new ArrayList<>();
+    private final Handler handler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            if (record.getLevel() == Level.WARNING) {
+                warnings.add(record.getMessage());
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @BeforeClass
+    public static void initialize() throws IOException {
+        new Main(true);
+        Main.setLoadedJar(JarLoader.loadJar("test.jar", EnigmaReaderTest.class.getResourceAsStream("/test.jar")));
+    }
+
+    @Before
+    public void addHandler() {
+        Main.getLogger().addHandler(handler);
+    }
+
+    @After
+    public void removeHandler() {
+        Main.getLogger().removeHandler(handler);
+    }
+
+    private MappingContext read(String mappings, int badLine) {
+        MappingContext context = new EnigmaReader(new BufferedReader(new StringReader(mappings))).read();
+        assertEquals(1, warnings.size());
+        assertTrue(warnings.get(0), warnings.get(0).endsWith(" on line " + badLine + " - ignoring"));
+        return context;
+    }
+
+    /**
+     * Asserts that the mappings of {@link #REST}, which follow the malformed
+     * line in every test, were read.
+     */
+    private static void assertRestRead(MappingContext context) {
+        ClassMapping mapping = context.getMappings().get("a");
+        assertEquals("com/example/project/Example", mapping.getDeobfuscatedName());
+        assertEquals("someMethod", mapping.getMethodMappings().get("a(ILa;I)La;").getDeobfuscatedName());
+    }
+
+    @Test
+    public void malformedClassTest() {
+        MappingContext context = read("CLASS b Another Extra\n"
+                + "\tCLASS a Inner\n"
+                + REST, 1);
+        // the members of a malformed class are skipped along with it
+        assertFalse(context.getMappings().containsKey("b"));
+        assertRestRead(context);
+    }
+
+    @Test
+    public void unexpectedIndentationTest() {
+        MappingContext context = read("\tCLASS b Another\n" + REST, 1);
+        assertFalse(context.getMappings().containsKey("b"));
+        assertRestRead(context);
+    }
+
+    @Test
+    public void misplacedInnerClassTest() {
+        MappingContext context = read("CLASS a com/example/project/Example\n"
+                + "\tCLASS b$a Inner\n"
+                + "\tMETHOD a someMethod (ILa;I)La;\n", 2);
+        assertTrue(context.getMappings().get("a").getInnerClassMappings().isEmpty());
+        assertRestRead(context);
+    }
+
+    @Test
+    public void malformedFieldTest() {
+        MappingContext context = read("CLASS a com/example/project/Example\n"
+                + "\tFIELD a someField I Extra\n"
+                + "\tMETHOD a someMethod (ILa;I)La;\n", 2);
+        assertTrue(context.getMappings().get("a").getFieldMappings().isEmpty());
+        assertRestRead(context);
+    }
+
+    @Test
+    public void malformedFieldTypeTest() {
+        MappingContext context = read("CLASS a com/example/project/Example\n"
+                + "\tFIELD a someField NotAType\n"
+                + "\tMETHOD a someMethod (ILa;I)La;\n", 2);
+        assertTrue(context.getMappings().get("a").getFieldMappings().isEmpty());
+        assertRestRead(context);
+    }
+
+    @Test
+    public void fieldOutsideClassTest() {
+        MappingContext context = read("FIELD a someField I\n" + REST, 1);
+        assertTrue(context.getMappings().get("a").getFieldMappings().isEmpty());
+        assertRestRead(context);
+    }
+
+    @Test
+    public void malformedMethodDescriptorTest() {
+        MappingContext context = read("CLASS a com/example/project/Example\n"
+                + "\tMETHOD a otherMethod (ILa;I\n"
+                + "\tMETHOD a someMethod (ILa;I)La;\n", 2);
+        assertEquals(1, context.getMappings().get("a").getMethodMappings().size());
+        assertRestRead(context);
+    }
+
+    @Test
+    public void argumentOutsideMethodTest() {
+        MappingContext context = read("CLASS a com/example/project/Example\n"
+                + "\tARG 0 someArg\n"
+                + "\tMETHOD a someMethod (ILa;I)La;\n"
+                + "\t\tARG 0 someArg\n", 2);
+        assertRestRead(context);
+    }
+
+    @Test
+    public void unrecognizedLineTest() {
+        MappingContext context = read("CLASS a com/example/project/Example\n"
+                + "\tPROPERTY a someProperty\n"
+                + "\tMETHOD a someMethod (ILa;I)La;\n", 2);
+        assertRestRead(context);
+    }
+
+}
@@ -36,6 +36,7 @@ import blue.lapis.nocturne.jar.model.attribute.Primitive;
 import blue.lapis.nocturne.jar.model.attribute.Type;
 import blue.lapis.nocturne.mapping.MappingContext;
 import blue.lapis.nocturne.mapping.io.reader.SrgReader;
+import blue.lapis.nocturne.mapping.io.writer.SrgWriter;
 import blue.lapis.nocturne.mapping.model.ClassMapping;
 import blue.lapis.nocturne.mapping.model.FieldMapping;
 import blue.lapis.nocturne.mapping.model.InnerClassMapping;
@@ -45,10 +46,18 @@ import javafx.application.Application;
 import javafx.stage.Stage;
 import jdk.nashorn.api.scripting.URLReader;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * Unit tests related to the {@link SrgReader}.
@@ -59,6 +68,9 @@ public class SrgReaderTest {
 
     private static MappingContext mappings;
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     public static class NonApp extends Application {
         @Override
         public void start(Stage primaryStage) throws Exception {
@@ -169,4 +181,85 @@ public class SrgReaderTest {
         assertEquals("com/example/project/Example$c", ClassMapping.deobfuscate(mappings, "a$c"));
     }
 
+    @Test
+    public void lineEndingTest() {
+        MappingContext context = read("CL: a com/example/project/Example  \r\n"
+                + "FD: a/a com/example/project/Example/someField \r\n"
+                + "MD: a/a (ILa;I)La; com/example/project/Example/someMethod (ILcom/example/project/Example;I)"
+                + "Lcom/example/project/Example;\r\n");
+
+        ClassMapping mapping = context.getMappings().get("a");
+        assertEquals(EXAMPLE_PACKAGE + "/Example", mapping.getDeobfuscatedName());
+        assertEquals("someField", mapping.getFieldMappings().get("a").getDeobfuscatedName());
+        assertEquals("someMethod", mapping.getMethodMappings().get("a(ILa;I)La;").getDeobfuscatedName());
+    }
+
+    @Test
+    public void innerClassBeforeOuterClassTest() {
+        MappingContext context = read("CL: a$b com/example/project/Example$Inner\n"
+                + "CL: a com/example/project/Example\n");
+
+        ClassMapping mapping = context.getMappings().get("a");
+        assertEquals(EXAMPLE_PACKAGE + "/Example", mapping.getDeobfuscatedName());
+        InnerClassMapping inner = mapping.getInnerClassMappings().get("b");
+        assertEquals("Inner", inner.getDeobfuscatedName());
+        assertEquals(EXAMPLE_PACKAGE + "/Example$Inner", inner.getFullDeobfuscatedName());
+    }
+
+    @Test
+    public void membersBeforeClassTest() {
+        MappingContext context = read("FD: a$b/a com/example/project/Example$Inner/someInnerField\n"
+                + "MD: a/a (ILa;I)La; com/example/project/Example/someMethod (ILcom/example/project/Example;I)"
+                + "Lcom/example/project/Example;\n"
+                + "FD: a/a com/example/project/Example/someField\n"
+                + "CL: a$b com/example/project/Example$Inner\n"
+                + "CL: a com/example/project/Example\n");
+
+        ClassMapping mapping = context.getMappings().get("a");
+        assertEquals(EXAMPLE_PACKAGE + "/Example", mapping.getDeobfuscatedName());
+        assertEquals("someField", mapping.getFieldMappings().get("a").getDeobfuscatedName());
+        assertEquals("someMethod", mapping.getMethodMappings().get("a(ILa;I)La;").getDeobfuscatedName());
+        assertEquals(new Type(EXAMPLE_PACKAGE + "/Example", 0),
+                mapping.getMethodMappings().get("a(ILa;I)La;").getDeobfuscatedDescriptor().getReturnType());
+
+        InnerClassMapping inner = mapping.getInnerClassMappings().get("b");
+        assertEquals(EXAMPLE_PACKAGE + "/Example$Inner", inner.getFullDeobfuscatedName());
+        assertEquals("someInnerField", inner.getFieldMappings().get("a").getDeobfuscatedName());
+    }
+
+    @Test
+    public void chunkedFileTest() throws IOException {
+        // large enough to be split into chunks, with later lines overriding earlier ones across chunk boundaries
+        final int lines = 60000;
+        final int fields = 1000;
+        StringBuilder srg = new StringBuilder();
+        srg.append("CL: a com/example/project/Example\n");
+        for (int i = 0; i < lines; i++) {
+            srg.append("FD: a/f").append(i % fields).append(" com/example/project/Example/field").append(i)
+                    .append(i % 3 == 0 ? " \r\n" : "\n");
+        }
+        srg.append("CL: a$b com/example/project/Example$Inner");
+        Path file = folder.newFile("large.srg").toPath();
+        Files.write(file, srg.toString().getBytes(StandardCharsets.UTF_8));
+        assertTrue(Files.size(file) >= 2 * 1024 * 1024);
+
+        MappingContext chunked = new SrgReader(file).read();
+
+        ClassMapping mapping = chunked.getMappings().get("a");
+        assertEquals(fields, mapping.getFieldMappings().size());
+        assertEquals("field" + (lines - fields + 7), mapping.getFieldMappings().get("f7").getDeobfuscatedName());
+        assertEquals("Inner", mapping.getInnerClassMappings().get("b").getDeobfuscatedName());
+        assertEquals(write(read(srg.toString())), write(chunked));
+    }
+
+    private static MappingContext read(String srg) {
+        return new SrgReader(new BufferedReader(new StringReader(srg))).read();
+    }
+
+    private static String write(MappingContext context) {
+        StringWriter out = new StringWriter();
+        new SrgWriter(new PrintWriter(out)).write(context);
+        return out.toString();
+    }
+
 }
@@ -0,0 +1,128 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.mapping.io.writer;
+
+import static org.junit.Assert.assertEquals;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
+import blue.lapis.nocturne.jar.model.attribute.Primitive;
+import blue.lapis.nocturne.jar.model.attribute.Type;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.io.writer.SrgWriter;
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.mapping.model.FieldMapping;
+import blue.lapis.nocturne.mapping.model.InnerClassMapping;
+import blue.lapis.nocturne.mapping.model.MethodMapping;
+import blue.lapis.nocturne.mapping.model.TopLevelClassMapping;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Unit tests related to the {@link SrgWriter} class.
+ */
+public class SrgWriterTest {
+
+    private static final Type INT = new Type(Primitive.INT, 0);
+
+    @BeforeClass
+    public static void initialize() throws IOException {
+        new Main(true);
+        Main.setLoadedJar(JarLoader.loadJar("test.jar", SrgWriterTest.class.getResourceAsStream("/test.jar")));
+    }
+
+    @Test
+    public void nestedInnerClassTest() {
+        MappingContext context = new MappingContext();
+        ClassMapping outer = addClass(context, "a", "com/example/project/Example");
+        ClassMapping inner = new InnerClassMapping(outer, "b", "Inner");
+        new InnerClassMapping(inner, "c", "Deep");
+        new FieldMapping(inner, "a", "innerField", INT);
+        new FieldMapping(outer, "a", "someField", INT);
+
+        assertEquals("CL: a com/example/project/Example\n"
+                + "CL: a$b com/example/project/Example$Inner\n"
+                + "CL: a$b$c com/example/project/Example$Inner$Deep\n"
+                + "FD: a$b/a com/example/project/Example$Inner/innerField\n"
+                + "FD: a/a com/example/project/Example/someField\n", write(context));
+    }
+
+    @Test
+    public void uselessInnerClassTest() {
+        MappingContext context = new MappingContext();
+        ClassMapping outer = addClass(context, "b", "b");
+        ClassMapping inner = new InnerClassMapping(outer, "a", "a");
+        new FieldMapping(inner, "a", "outer", INT);
+        new MethodMapping(inner, "a", "run", MethodDescriptor.fromString("()V"), false);
+        new InnerClassMapping(inner, "c", "Deep");
+        new InnerClassMapping(outer, "c", "c");
+
+        // the classes keep their names, but their members and inner classes are still written
+        assertEquals("CL: b$a$c b$a$Deep\n"
+                + "FD: b$a/a b$a/outer\n"
+                + "MD: b$a/a ()V b$a/run ()V\n", write(context));
+    }
+
+    @Test
+    public void caseCollisionTest() {
+        MappingContext context = new MappingContext();
+        ClassMapping lower = addClass(context, "a", "com/example/project/Lower");
+        addClass(context, "A", "com/example/project/Upper");
+        new FieldMapping(lower, "a", "lowerField", INT);
+        new FieldMapping(lower, "A", "upperField", INT);
+        new FieldMapping(lower, "b", "otherField", INT);
+        new MethodMapping(lower, "a", "lowerMethod", MethodDescriptor.fromString("(I)V"), false);
+        new MethodMapping(lower, "a", "overload", MethodDescriptor.fromString("()V"), false);
+        new MethodMapping(lower, "A", "upperMethod", MethodDescriptor.fromString("(I)V"), false);
+
+        assertEquals("CL: A com/example/project/Upper\n"
+                + "CL: a com/example/project/Lower\n"
+                + "FD: a/A com/example/project/Lower/upperField\n"
+                + "FD: a/a com/example/project/Lower/lowerField\n"
+                + "FD: a/b com/example/project/Lower/otherField\n"
+                + "MD: a/A (I)V com/example/project/Lower/upperMethod (I)V\n"
+                + "MD: a/a ()V com/example/project/Lower/overload ()V\n"
+                + "MD: a/a (I)V com/example/project/Lower/lowerMethod (I)V\n", write(context));
+    }
+
+    private static ClassMapping addClass(MappingContext context, String obf, String deobf) {
+        TopLevelClassMapping mapping = new TopLevelClassMapping(context, obf, deobf);
+        context.addMapping(mapping);
+        return mapping;
+    }
+
+    private static String write(MappingContext context) {
+        StringWriter out = new StringWriter();
+        new SrgWriter(new PrintWriter(out)).write(context);
+        return out.toString();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.processor.index.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import blue.lapis.nocturne.processor.index.model.ClassIdSet;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.stream.IntStream;
+
+/**
+ * Unit tests related to the {@link ClassIdSet} class.
+ */
+public class ClassIdSetTest {
+
+    // few members spread over many words, stored as an array
+    private static final int[] SPARSE = {0, 63, 64, 1000, 5000};
+    // every other ID up to 256, stored as a bitmap
+    private static final int[] DENSE = IntStream.range(0, 128).map(i -> i * 2 + 1).toArray();
+
+    private static BitSet bits(int... ids) {
+        BitSet bits = new BitSet();
+        for (int id : ids) {
+            bits.set(id);
+        }
+        return bits;
+    }
+
+    private static int[] toArray(ClassIdSet set) {
+        int[] ids = new int[set.size()];
+        PrimitiveIterator.OfInt it = set.iterator();
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = it.nextInt();
+        }
+        assertFalse(it.hasNext());
+        return ids;
+    }
+
+    @Test
+    public void testEmpty() {
+        assertSame(ClassIdSet.EMPTY, ClassIdSet.of(new BitSet()));
+        assertSame(ClassIdSet.EMPTY, ClassIdSet.ofSorted(new int[0]));
+        assertTrue(ClassIdSet.EMPTY.isEmpty());
+        assertFalse(ClassIdSet.EMPTY.iterator().hasNext());
+        assertSame(ClassIdSet.EMPTY, ClassIdSet.of(bits(SPARSE)).and(ClassIdSet.EMPTY));
+    }
+
+    @Test
+    public void testSparse() {
+        ClassIdSet set = ClassIdSet.of(bits(SPARSE));
+        assertEquals(SPARSE.length, set.size());
+        assertArrayEquals(SPARSE, toArray(set));
+        assertTrue(set.contains(64));
+        assertFalse(set.contains(65));
+        assertFalse(set.contains(-1));
+        assertFalse(set.contains(100000));
+    }
+
+    @Test
+    public void testDense() {
+        ClassIdSet set = ClassIdSet.of(bits(DENSE));
+        assertEquals(DENSE.length, set.size());
+        assertArrayEquals(DENSE, toArray(set));
+        assertTrue(set.contains(63));
+        assertFalse(set.contains(64));
+        assertFalse(set.contains(-1));
+        assertFalse(set.contains(100000));
+    }
+
+    @Test
+    public void testWordBoundaries() {
+        // a bitmap whose members sit at the edges of its words and which skips an empty word
+        int[] ids = IntStream.concat(IntStream.rangeClosed(0, 63), IntStream.of(128, 191)).toArray();
+        ClassIdSet set = ClassIdSet.of(bits(ids));
+        assertArrayEquals(ids, toArray(set));
+
+        int[] forEach = new int[ids.length];
+        int[] index = {0};
+        set.forEach(id -> forEach[index[0]++] = id);
+        assertArrayEquals(ids, forEach);
+    }
+
+    @Test
+    public void testOfSorted() {
+        assertArrayEquals(SPARSE, toArray(ClassIdSet.ofSorted(SPARSE)));
+        assertArrayEquals(DENSE, toArray(ClassIdSet.ofSorted(DENSE)));
+        assertTrue(ClassIdSet.ofSorted(DENSE).contains(255));
+    }
+
+    @Test
+    public void testEncodingThreshold() {
+        // IDs up to 127 span two words, so four members is the largest set kept as an array
+        int[] atLimit = {0, 40, 90, 127};
+        int[] overLimit = {0, 40, 90, 100, 127};
+        for (int[] ids : new int[][] {atLimit, overLimit}) {
+            ClassIdSet fromBits = ClassIdSet.of(bits(ids));
+            ClassIdSet fromSorted = ClassIdSet.ofSorted(ids);
+            assertArrayEquals(ids, toArray(fromBits));
+            assertArrayEquals(ids, toArray(fromSorted));
+            assertArrayEquals(ids, toArray(fromBits.and(fromSorted)));
+            assertFalse(fromBits.contains(41));
+            assertTrue(fromSorted.contains(127));
+        }
+    }
+
+    @Test
+    public void testAnd() {
+        ClassIdSet sparse = ClassIdSet.of(bits(1, 3, 64, 1000));
+        ClassIdSet dense = ClassIdSet.of(bits(DENSE));
+
+        // array and bitmap, in both directions
+        assertArrayEquals(new int[] {1, 3}, toArray(sparse.and(dense)));
+        assertArrayEquals(new int[] {1, 3}, toArray(dense.and(sparse)));
+        // two arrays
+        assertArrayEquals(new int[] {64, 1000}, toArray(sparse.and(ClassIdSet.ofSorted(new int[] {64, 999, 1000}))));
+        // two bitmaps
+        ClassIdSet otherDense = ClassIdSet.of(bits(IntStream.range(0, 200).filter(i -> i % 3 == 0).toArray()));
+        assertArrayEquals(IntStream.range(0, 256).filter(i -> i % 2 == 1 && i % 3 == 0 && i < 200).toArray(),
+                toArray(dense.and(otherDense)));
+        // disjoint sets
+        assertSame(ClassIdSet.EMPTY, ClassIdSet.ofSorted(new int[] {2, 4}).and(dense));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void testIteratorExhausted() {
+        PrimitiveIterator.OfInt it = ClassIdSet.ofSorted(new int[] {5}).iterator();
+        it.nextInt();
+        it.nextInt();
+    }
+
+}
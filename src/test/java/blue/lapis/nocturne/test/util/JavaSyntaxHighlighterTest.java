@@ -0,0 +1,123 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.util;
+
+import static org.junit.Assert.assertEquals;
+
+import blue.lapis.nocturne.gui.scene.text.CodeSpan;
+import blue.lapis.nocturne.util.JavaSyntaxHighlighter;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests related to the {@link JavaSyntaxHighlighter} class.
+ */
+public class JavaSyntaxHighlighterTest {
+
+    /**
+     * Describes each line of the highlighted code, writing plain spans as-is,
+     * styled spans as {@code [style:text]} and member spans as
+     * {@code {TYPE:parent/name:descriptor}}.
+     */
+    private static String highlight(String code) {
+        List<CodeSpan[]> lines = JavaSyntaxHighlighter.highlight(code);
+        return lines.stream().map(JavaSyntaxHighlighterTest::describe).collect(Collectors.joining("\n"));
+    }
+
+    private static String describe(CodeSpan[] line) {
+        StringBuilder sb = new StringBuilder();
+        for (CodeSpan span : line) {
+            if (span.isMember()) {
+                sb.append('{').append(span.getMemberType()).append(':');
+                if (span.getParentClass() != null) {
+                    sb.append(span.getParentClass()).append('/');
+                }
+                sb.append(span.getText());
+                if (span.getDescriptor() != null) {
+                    sb.append(':').append(span.getDescriptor());
+                }
+                sb.append('}');
+            } else if (span.getStyleClass() != null) {
+                sb.append('[').append(span.getStyleClass()).append(':').append(span.getText()).append(']');
+            } else {
+                sb.append(span.getText());
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testProcessedNames() {
+        assertEquals("[keyword:public] [keyword:class] {CLASS:a/B} {",
+                highlight("public class &NOCTURNE+a/B& {"));
+        assertEquals("{METHOD:a/B/m:(I)V}(x.{FIELD:a/B/f:I})[semicolon:;]",
+                highlight("%NOCTURNE+METHOD-a/B/m-(I)V%(x.%NOCTURNE+FIELD-a/B/f-I%);"));
+    }
+
+    @Test
+    public void testProcessedNamesInStrings() {
+        // names are processed inside string literals too, so they take precedence over the literal
+        assertEquals("x = \"{CLASS:a/B}\"[semicolon:;]", highlight("x = \"&NOCTURNE+a/B&\";"));
+        assertEquals("x = \"[keyword:new] {FIELD:a/B/f:I}\"[semicolon:;]",
+                highlight("x = \"new %NOCTURNE+FIELD-a/B/f-I%\";"));
+        // a literal which merely resembles a processed name is a plain string
+        assertEquals("x = [string:\"&NOCTURNE+\"][semicolon:;]", highlight("x = \"&NOCTURNE+\";"));
+    }
+
+    @Test
+    public void testStrings() {
+        assertEquals("[string:\"a\\\"b;\"][semicolon:;]", highlight("\"a\\\"b;\";"));
+        assertEquals("\"unterminated[semicolon:;]\n[keyword:int]", highlight("\"unterminated;\nint"));
+    }
+
+    @Test
+    public void testEscapedChars() {
+        assertEquals("c = [string:'\\'']", highlight("c = '\\''"));
+        assertEquals("c = [string:'\\\\'][semicolon:;]", highlight("c = '\\\\';"));
+        assertEquals("c = [string:'\\n'], [string:'a'], [string:'\"']", highlight("c = '\\n', 'a', '\"'"));
+        assertEquals("c = ''[semicolon:;]", highlight("c = '';"));
+    }
+
+    @Test
+    public void testNumbers() {
+        assertEquals("[number:1] + [number:2.5f] - x2 + [number:10L]", highlight("1 + 2.5f - x2 + 10L"));
+        assertEquals("x\n[number:42][semicolon:;]", highlight("x\n42;"));
+        assertEquals("[number:0]", highlight("0"));
+        // digits directly following a processed name belong to neither
+        assertEquals("{CLASS:a/B}1", highlight("&NOCTURNE+a/B&1"));
+    }
+
+    @Test
+    public void testLineEndings() {
+        assertEquals("[keyword:int] a[semicolon:;]\n[number:1]\n\n[keyword:return]",
+                highlight("int a;\r\n1\r\n\r\nreturn"));
+        assertEquals("[string:\"s\"]\n", highlight("\"s\"\r\n"));
+    }
+
+}